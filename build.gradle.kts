@@ -1,5 +1,6 @@
 plugins {
 	id("java")
+	id("me.champeau.gradle.jmh") version "0.4.8"
 }
 
 group = "aero.geosystems"
@@ -17,3 +18,19 @@ dependencies {
 	compile(group = "org.jetbrains", name = "annotations", version = "13.0")
 	testCompile(group = "junit", name = "junit", version = "4.8")
 }
+
+/*
+ * Microbenchmarks live in src/jmh/java; run with `gradle jmh`.
+ * Single benchmark: `gradle jmh -Pjmh.include=GnssUtilsBenchmark`
+ */
+jmh {
+	jmhVersion = "1.21"
+	include = listOf((project.findProperty("jmh.include") ?: ".*") as String)
+	benchmarkMode = listOf("thrpt")
+	timeUnit = "us"
+	profilers = listOf("gc")
+	fork = 1
+	warmupIterations = 3
+	iterations = 5
+	failOnError = true
+}
@@ -0,0 +1,94 @@
+package aero.geosystems.gnss;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.text.ParseException;
+
+/**
+ * Calendar conversions, formatting and parsing over a 1 Hz epoch sequence spanning one day.
+ */
+@State(Scope.Thread)
+public class DatetimeBenchmark {
+
+	/**
+	 * RINEX 3 observation epoch, default log format, XML timestamp
+	 */
+	@Param({"YYYY MM DD HH mm ss.ccc", Datetime.DEFAULT_FORMAT, Datetime.XML_FORMAT})
+	public String pattern;
+
+	private long[] epochs;
+	private String[] strings;
+	private Datetime dt;
+	private DatetimeFormat compiledFormat;
+	private DatetimeParser compiledParser;
+	private StringBuilder sb;
+	private int i;
+
+	@Setup
+	public void setup() {
+		int n = (int) (GnssUtils.MS_IN_DAY / 1000);
+		epochs = new long[n];
+		strings = new String[n];
+		long t0 = new Datetime(2019, 1, 24).getTime();
+		for (int k = 0; k < n; k++) {
+			epochs[k] = t0 + k * 1000L;
+			strings[k] = new Datetime(epochs[k]).format(pattern);
+		}
+		dt = new Datetime(t0);
+		compiledFormat = DatetimeFormat.compile(pattern);
+		compiledParser = DatetimeParser.compile(pattern);
+		sb = new StringBuilder(64);
+	}
+
+	private int next() {
+		int k = i++;
+		if (i == epochs.length) i = 0;
+		return k;
+	}
+
+	@Benchmark
+	public Datetime parse() throws ParseException {
+		return Datetime.parse(pattern, strings[next()]);
+	}
+
+	@Benchmark
+	public long parseCompiled() throws ParseException {
+		return compiledParser.parse(strings[next()]);
+	}
+
+	@Benchmark
+	public String format() {
+		return dt.setTime(epochs[next()]).format(pattern);
+	}
+
+	@Benchmark
+	public StringBuilder formatCompiled() {
+		sb.setLength(0);
+		return compiledFormat.formatTo(dt.setTime(epochs[next()]), sb);
+	}
+
+	/**
+	 * setTime followed by a field read, which triggers setFieldsFromTime
+	 */
+	@Benchmark
+	public int setFieldsFromTime() {
+		return dt.setTime(epochs[next()]).day();
+	}
+
+	/**
+	 * Day stepping, as done when iterating over archive ranges
+	 */
+	@Benchmark
+	public long addDays() {
+		return dt.setTime(epochs[next()]).add(Datetime.DAY_OF_MONTH, 400).getTime();
+	}
+
+	@Benchmark
+	public long addSeconds() {
+		return dt.setTime(epochs[next()]).add(Datetime.SECOND, 1).getTime();
+	}
+}
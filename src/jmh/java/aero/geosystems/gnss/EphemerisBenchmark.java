@@ -0,0 +1,97 @@
+package aero.geosystems.gnss;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Satellite position, velocity and clock from broadcast ephemerides: 32 GPS satellites at one epoch;
+ * 24 GLONASS satellites at 1 Hz epochs up to 15 minutes from tb, integrated from tb or incrementally.
+ */
+@State(Scope.Thread)
+public class EphemerisBenchmark {
+	private static final int NSATS = 32;
+
+	private static final int NGLO = 24;
+
+	private KeplerEphemeris[] kepler;
+	private GlonassEphemeris[] glonass;
+	private final GlonassPropagator propagator = new GlonassPropagator();
+	private long t;
+	private long tb;
+	private int epoch;
+	private double[] dst;
+
+	@Setup
+	public void setup() {
+		long toe = GpsTimeNs.fromWeekTowSeconds(2034, 352800);
+		KeplerEphemeris.Elements el = new KeplerEphemeris.Elements();
+		el.toe = toe;
+		el.toc = toe;
+		el.sqrtA = 5153.65;
+		el.e = 0.0123;
+		el.i0 = 0.962;
+		el.omega0 = 1.07;
+		el.omega = 0.51;
+		el.deltaN = 4.5e-9;
+		el.omegaDot = -8.1e-9;
+		el.cus = 8.4e-6;
+		el.crc = 251.2;
+		kepler = new KeplerEphemeris[NSATS];
+		for (int k = 0; k < NSATS; k++) {
+			el.satId = k + 1;
+			el.m0 = k * 2 * Math.PI / NSATS;
+			kepler[k] = new KeplerEphemeris(el);
+		}
+		t = toe + 1234 * GpsTimeNs.NS_IN_SECOND;
+		dst = new double[NSATS * Ephemeris.STRIDE];
+
+		tb = toe;
+		double r = 25510e3;
+		double v = Math.sqrt(GnssConstants.MU / r);
+		double inc = Math.toRadians(64.8);
+		GlonassEphemeris.Elements gl = new GlonassEphemeris.Elements();
+		gl.tb = tb;
+		glonass = new GlonassEphemeris[NGLO];
+		for (int k = 0; k < NGLO; k++) {
+			double lon = k * 2 * Math.PI / NGLO;
+			gl.satId = SatSystem.GLONASS.rinexNumberToId(k + 1);
+			gl.x = r * Math.cos(lon);
+			gl.y = r * Math.sin(lon);
+			gl.vx = -Math.sin(lon) * (v * Math.cos(inc) - GnssConstants.OMEGA_EARTH * r);
+			gl.vy = Math.cos(lon) * (v * Math.cos(inc) - GnssConstants.OMEGA_EARTH * r);
+			gl.vz = v * Math.sin(inc);
+			glonass[k] = new GlonassEphemeris(gl);
+		}
+	}
+
+	/**
+	 * Next 1 Hz epoch in tb..tb+15 min
+	 */
+	private long nextGloEpoch() {
+		if (++epoch > 900) epoch = 0;
+		return tb + epoch * GpsTimeNs.NS_IN_SECOND;
+	}
+
+	@Benchmark
+	public double[] kepler() {
+		KeplerEphemeris.evaluate(kepler, 0, t, dst, 0, NSATS);
+		return dst;
+	}
+
+	@Benchmark
+	public double[] glonassFromTb() {
+		long t = nextGloEpoch();
+		for (int k = 0; k < NGLO; k++) {
+			glonass[k].evaluate(t, dst, k * Ephemeris.STRIDE);
+		}
+		return dst;
+	}
+
+	@Benchmark
+	public double[] glonassIncremental() {
+		propagator.evaluate(glonass, 0, nextGloEpoch(), dst, 0, NGLO);
+		return dst;
+	}
+}
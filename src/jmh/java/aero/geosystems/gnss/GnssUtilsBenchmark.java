@@ -0,0 +1,96 @@
+package aero.geosystems.gnss;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Time conversions over a 1 Hz epoch sequence spanning one GPS week.
+ * Each invocation converts the next epoch of the sequence, wrapping around at the end of the week.
+ */
+@State(Scope.Thread)
+public class GnssUtilsBenchmark {
+
+	/**
+	 * GPS week of the sequence: 1930 (Jan 2017, right after the last leap second) and 1000 (Mar 1999)
+	 */
+	@Param({"1930", "1000"})
+	public int week;
+
+	private long[] gpsEpochs;
+	private long[] unixEpochs;
+	private long[] gloEpochs;
+	private long[] out;
+	private int i;
+
+	@Setup
+	public void setup() {
+		int n = (int) (GnssUtils.MS_IN_WEEK / 1000);
+		gpsEpochs = new long[n];
+		unixEpochs = new long[n];
+		gloEpochs = new long[n];
+		long t0 = GnssUtils.constructGpsTime(week, 0);
+		for (int k = 0; k < n; k++) {
+			gpsEpochs[k] = t0 + k * 1000L;
+			unixEpochs[k] = GnssUtils.gps2unix(gpsEpochs[k]);
+			gloEpochs[k] = GnssUtils.gps2gloms(gpsEpochs[k]);
+		}
+		out = new long[n];
+	}
+
+	private int next() {
+		int k = i++;
+		if (i == gpsEpochs.length) i = 0;
+		return k;
+	}
+
+	@Benchmark
+	public long gps2unix() {
+		return GnssUtils.gps2unix(gpsEpochs[next()]);
+	}
+
+	@Benchmark
+	public long unix2gps() {
+		return GnssUtils.unix2gps(unixEpochs[next()]);
+	}
+
+	@Benchmark
+	public int leapSeconds() {
+		return GnssUtils.leapSeconds(gpsEpochs[next()]);
+	}
+
+	/**
+	 * RTCM-style ms-of-week resolved against a reference time half a minute behind
+	 */
+	@Benchmark
+	public long addGuessedWeek() {
+		int k = next();
+		return GnssUtils.addGuessedWeek(gpsEpochs[k] - 30000L, GnssUtils.extractMs(gpsEpochs[k]));
+	}
+
+	/**
+	 * GLONASS ms-of-day resolved against a reference time half a minute behind
+	 */
+	@Benchmark
+	public long gloms2gpstime() {
+		int k = next();
+		return GnssUtils.gloms2gpstime(gloEpochs[k], gpsEpochs[k] - 30000L);
+	}
+
+	/**
+	 * Whole week at once; divide score by 604800 for per-epoch cost
+	 */
+	@Benchmark
+	public long[] gps2unixBulk() {
+		GnssUtils.gps2unix(gpsEpochs, 0, out, 0, gpsEpochs.length);
+		return out;
+	}
+
+	@Benchmark
+	public long[] unix2gpsBulk() {
+		GnssUtils.unix2gps(unixEpochs, 0, out, 0, unixEpochs.length);
+		return out;
+	}
+}
@@ -0,0 +1,63 @@
+package aero.geosystems.gnss;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * Dual-frequency combinations over one epoch of satellites, one double[] per signal.
+ */
+@State(Scope.Thread)
+public class LinearCombinationBenchmark {
+
+	@Param({"32", "128"})
+	public int sats;
+
+	private LinearCombination lc;
+	private double[] l1, l2, p1, p2, dst;
+
+	@Setup
+	public void setup() {
+		lc = LinearCombination.of(RawSignal.GPS_L1_CA, RawSignal.GPS_L2_PY_W);
+		Random rnd = new Random(1);
+		l1 = new double[sats];
+		l2 = new double[sats];
+		p1 = new double[sats];
+		p2 = new double[sats];
+		dst = new double[sats];
+		for (int i = 0; i < sats; i++) {
+			p1[i] = 2e7 + rnd.nextDouble() * 5e6;
+			p2[i] = p1[i] + rnd.nextDouble() * 10;
+			l1[i] = p1[i] / lc.wavelength1 + rnd.nextInt(100000);
+			l2[i] = p2[i] / lc.wavelength2 + rnd.nextInt(100000);
+		}
+	}
+
+	@Benchmark
+	public double[] ionosphereFreePhase() {
+		lc.ionosphereFreePhase(l1, l2, dst, 0, sats);
+		return dst;
+	}
+
+	@Benchmark
+	public double[] melbourneWubbena() {
+		lc.melbourneWubbena(l1, l2, p1, p2, dst, 0, sats);
+		return dst;
+	}
+
+	/**
+	 * Per-observation combination with coefficients looked up every time
+	 */
+	@Benchmark
+	public double[] melbourneWubbenaScalar() {
+		for (int i = 0; i < sats; i++) {
+			dst[i] = LinearCombination.of(RawSignal.GPS_L1_CA, RawSignal.GPS_L2_PY_W)
+					.melbourneWubbena(l1[i], l2[i], p1[i], p2[i]);
+		}
+		return dst;
+	}
+}
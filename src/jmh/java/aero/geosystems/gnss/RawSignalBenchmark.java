@@ -0,0 +1,79 @@
+package aero.geosystems.gnss;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Carrier wavelength lookups over all signals and, for FDMA signals, all GLONASS frequency channels;
+ * RINEX observation code resolution.
+ */
+@State(Scope.Thread)
+public class RawSignalBenchmark {
+
+	private RawSignal[] signals;
+	private int[] channels;
+	private String[] codes;
+	private int i;
+
+	@Setup
+	public void setup() {
+		RawSignal[] values = RawSignal.values();
+		int n = 0;
+		for (RawSignal signal : values) n += signal.frequencyStep != 0 ? 14 : 1;
+		signals = new RawSignal[n];
+		channels = new int[n];
+		codes = new String[n];
+		int k = 0;
+		for (RawSignal signal : values) {
+			if (signal.frequencyStep != 0) {
+				for (int fqidx = -7; fqidx <= 6; fqidx++) {
+					signals[k] = signal;
+					channels[k++] = fqidx;
+				}
+			} else {
+				signals[k++] = signal;
+			}
+		}
+		for (k = 0; k < n; k++) {
+			codes[k] = signals[k].rinexCode("CLDS".charAt(k & 3));
+		}
+	}
+
+	private int next() {
+		int k = i++;
+		if (i == signals.length) i = 0;
+		return k;
+	}
+
+	@Benchmark
+	public double wavelength() {
+		int k = next();
+		return signals[k].wavelength(channels[k]);
+	}
+
+	/**
+	 * Phase [cycles] to range [m]
+	 */
+	@Benchmark
+	public double phaseToRange() {
+		int k = next();
+		return 1.2345678901e8 * signals[k].wavelength(channels[k]);
+	}
+
+	/**
+	 * Range [m] to phase [cycles]
+	 */
+	@Benchmark
+	public double rangeToPhase() {
+		int k = next();
+		return 2.3456789012e7 * signals[k].inverseWavelength(channels[k]);
+	}
+
+	@Benchmark
+	public RawSignal byRinexCode() {
+		int k = next();
+		return RawSignal.byRinexCode(signals[k].gnss, codes[k]);
+	}
+}
@@ -0,0 +1,50 @@
+package aero.geosystems.gnss;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Satellite system lookups over a mixed multi-GNSS constellation, as seen in a decoded observation stream.
+ */
+@State(Scope.Thread)
+public class SatSystemBenchmark {
+
+	private int[] ids;
+	private char[] codes;
+	private int i;
+
+	@Setup
+	public void setup() {
+		SatSystem[] systems = SatSystem.values();
+		int n = 0;
+		for (SatSystem system : systems) n += system.numSats;
+		ids = new int[n];
+		codes = new char[n];
+		int k = 0;
+		for (SatSystem system : systems) {
+			for (int index = 1; index <= system.numSats; index++) {
+				ids[k] = system.indexToId(index);
+				codes[k] = system.charCode;
+				k++;
+			}
+		}
+	}
+
+	private int next() {
+		int k = i++;
+		if (i == ids.length) i = 0;
+		return k;
+	}
+
+	@Benchmark
+	public SatSystem byId() {
+		return SatSystem.byId(ids[next()]);
+	}
+
+	@Benchmark
+	public SatSystem byCharCode() {
+		return SatSystem.byCharCode(codes[next()]);
+	}
+}
@@ -0,0 +1,79 @@
+package aero.geosystems.gnss;
+
+/**
+ * Key set of per-satellite maps: keys are global satellite indices ({@link SatSystem#globalIndex}).
+ * <p/>
+ * Present keys are kept in a dense list for iteration:
+ * <pre>
+ * for (int i = 0; i &lt; map.size(); i++) {
+ * 	int index = map.keyAt(i);
+ * 	...
+ * }
+ * </pre>
+ * Removal moves the last key into the freed place, so don't remove while iterating forward.
+ */
+abstract class AbstractSatMap {
+	/**
+	 * Global index -> position in keys + 1, 0 if absent
+	 */
+	private final int[] positions = new int[SatSystem.totalNumIds];
+	private final int[] keys = new int[SatSystem.totalNumIds];
+	private int size;
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public boolean containsKey(int index) {
+		return positions[index] != 0;
+	}
+
+	/**
+	 * @param i 0..size()-1
+	 * @return Global index of i-th present satellite
+	 */
+	public int keyAt(int i) {
+		return keys[i];
+	}
+
+	/**
+	 * Removes all keys in O(size())
+	 */
+	public void clear() {
+		for (int i = 0; i < size; i++) {
+			positions[keys[i]] = 0;
+		}
+		size = 0;
+	}
+
+	/**
+	 * Adds key if absent
+	 *
+	 * @return true if key was added
+	 */
+	final boolean addKey(int index) {
+		if (positions[index] != 0) return false;
+		keys[size] = index;
+		positions[index] = ++size;
+		return true;
+	}
+
+	/**
+	 * @return true if key was present
+	 */
+	final boolean removeKey(int index) {
+		int pos = positions[index];
+		if (pos == 0) return false;
+		positions[index] = 0;
+		int last = keys[--size];
+		if (last != index) {
+			keys[pos - 1] = last;
+			positions[last] = pos;
+		}
+		return true;
+	}
+}
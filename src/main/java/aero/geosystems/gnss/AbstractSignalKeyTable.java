@@ -0,0 +1,156 @@
+package aero.geosystems.gnss;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash table of {@link SignalKey}s with linear probing; 0 marks a free slot.
+ * <p/>
+ * Subclasses keep values in parallel arrays indexed by slot. Iteration over slots:
+ * <pre>
+ * for (int slot = table.nextSlot(0); slot &gt;= 0; slot = table.nextSlot(slot + 1)) {
+ * 	int key = table.keyAt(slot);
+ * 	...
+ * }
+ * </pre>
+ * Adding or removing keys moves other keys between slots.
+ */
+abstract class AbstractSignalKeyTable {
+	private int[] keys;
+	private int mask;
+	private int size;
+
+	AbstractSignalKeyTable(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max(4, expectedSize) * 2 - 1) << 1;
+		keys = new int[capacity];
+		mask = capacity - 1;
+	}
+
+	/**
+	 * @return Number of slots, size of value arrays
+	 */
+	final int capacity() {
+		return keys.length;
+	}
+
+	/**
+	 * Installs new value array of capacity
+	 *
+	 * @return Previous value array
+	 */
+	abstract Object swapValues(int capacity);
+
+	/**
+	 * Copies value from slot of previous value array to slot of current one
+	 */
+	abstract void rehashValue(Object oldValues, int from, int to);
+
+	abstract void moveValue(int from, int to);
+
+	abstract void clearValue(int slot);
+
+	abstract void clearValues();
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public boolean contains(int key) {
+		return find(key) >= 0;
+	}
+
+	/**
+	 * @return First occupied slot &gt;= from, or -1
+	 */
+	public int nextSlot(int from) {
+		for (int i = from; i < keys.length; i++) {
+			if (keys[i] != 0) return i;
+		}
+		return -1;
+	}
+
+	public int keyAt(int slot) {
+		return keys[slot];
+	}
+
+	public void clear() {
+		if (size == 0) return;
+		Arrays.fill(keys, 0);
+		clearValues();
+		size = 0;
+	}
+
+	private int slot(int key) {
+		int h = key * 0x9e3779b9;
+		return (h ^ h >>> 16) & mask;
+	}
+
+	/**
+	 * @return Slot of key, or -1
+	 */
+	final int find(int key) {
+		for (int i = slot(key); ; i = (i + 1) & mask) {
+			int k = keys[i];
+			if (k == key) return i;
+			if (k == 0) return -1;
+		}
+	}
+
+	/**
+	 * @return Slot of key if it was present, or ~slot of added key
+	 * @throws IllegalArgumentException if key is 0
+	 */
+	final int insert(int key) {
+		if (key == 0) throw new IllegalArgumentException("Invalid signal key 0");
+		int i = slot(key);
+		for (int k; (k = keys[i]) != 0; i = (i + 1) & mask) {
+			if (k == key) return i;
+		}
+		if (2 * (size + 1) > keys.length) {
+			rehash(keys.length * 2);
+			i = slot(key);
+			while (keys[i] != 0) i = (i + 1) & mask;
+		}
+		keys[i] = key;
+		size++;
+		return ~i;
+	}
+
+	/**
+	 * @return Slot key was removed from, or -1 if it was absent. Value of that slot must be read before.
+	 */
+	final int delete(int key) {
+		int slot = find(key);
+		if (slot < 0) return -1;
+		int gap = slot;
+		for (int i = (gap + 1) & mask, k; (k = keys[i]) != 0; i = (i + 1) & mask) {
+			if (((i - slot(k)) & mask) >= ((i - gap) & mask)) {
+				keys[gap] = k;
+				moveValue(i, gap);
+				gap = i;
+			}
+		}
+		keys[gap] = 0;
+		clearValue(gap);
+		size--;
+		return slot;
+	}
+
+	private void rehash(int capacity) {
+		int[] old = keys;
+		keys = new int[capacity];
+		mask = capacity - 1;
+		Object oldValues = swapValues(capacity);
+		for (int j = 0; j < old.length; j++) {
+			int k = old[j];
+			if (k == 0) continue;
+			int i = slot(k);
+			while (keys[i] != 0) i = (i + 1) & mask;
+			keys[i] = k;
+			rehashValue(oldValues, j, i);
+		}
+	}
+}
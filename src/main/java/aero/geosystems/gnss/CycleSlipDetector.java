@@ -0,0 +1,241 @@
+package aero.geosystems.gnss;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Streaming cycle slip detector for a pair of signals of one system, fed one epoch at a time.
+ * <p/>
+ * Per satellite it keeps O(1) state: running mean and variance of Melbourne-W&uuml;bbena combination over a
+ * window of {@link #setWindow} epochs, last geometry-free phase and its rate, last phases and dopplers.
+ * An epoch is checked with
+ * <ul>
+ * <li>loss of lock indicators;</li>
+ * <li>Melbourne-W&uuml;bbena jump against its running mean (needs pseudoranges);</li>
+ * <li>geometry-free phase against its linear prediction;</li>
+ * <li>phase change of each signal against integrated doppler (needs dopplers).</li>
+ * </ul>
+ * A slip or a data gap longer than {@link #setMaxGap} starts a new arc from the current epoch; a repeated or
+ * out-of-order epoch is ignored.
+ * Not thread-safe.
+ */
+public final class CycleSlipDetector {
+	public static final int SLIP_LLI = 1;
+	public static final int SLIP_MW = 2;
+	public static final int SLIP_GF = 4;
+	public static final int SLIP_DOPPLER = 8;
+	/**
+	 * Not a slip: arc restarted after a gap
+	 */
+	public static final int GAP = 16;
+	public static final int SLIP = SLIP_LLI | SLIP_MW | SLIP_GF | SLIP_DOPPLER;
+
+	@NotNull
+	private final RawSignal signal1;
+	@NotNull
+	private final RawSignal signal2;
+	private int window = 100;
+	private long maxGap = 60_000;
+	private double mwSigmas = 4;
+	private double mwMinThreshold = 1;
+	private double gfThreshold = 0.05;
+	private double dopplerThreshold = 1;
+
+	/**
+	 * Epochs in arc, 0 - no arc
+	 */
+	private final int[] epochs = new int[SatSystem.totalNumIds];
+	private final long[] lastTime = new long[SatSystem.totalNumIds];
+	private final int[] mwCount = new int[SatSystem.totalNumIds];
+	private final double[] mwMean = new double[SatSystem.totalNumIds];
+	private final double[] mwVar = new double[SatSystem.totalNumIds];
+	private final double[] gf = new double[SatSystem.totalNumIds];
+	private final double[] gfRate = new double[SatSystem.totalNumIds];
+	private final double[] phase1 = new double[SatSystem.totalNumIds];
+	private final double[] phase2 = new double[SatSystem.totalNumIds];
+	private final float[] doppler1 = new float[SatSystem.totalNumIds];
+	private final float[] doppler2 = new float[SatSystem.totalNumIds];
+
+	/**
+	 * @throws IllegalArgumentException if signals are of different systems or of same frequency
+	 */
+	public CycleSlipDetector(@NotNull RawSignal signal1, @NotNull RawSignal signal2) {
+		if (signal1.gnss != signal2.gnss) throw new IllegalArgumentException(signal1 + " and " + signal2 + " are of different systems");
+		LinearCombination.of(signal1, signal2);
+		this.signal1 = signal1;
+		this.signal2 = signal2;
+	}
+
+	@NotNull
+	public RawSignal getSignal1() {
+		return signal1;
+	}
+
+	@NotNull
+	public RawSignal getSignal2() {
+		return signal2;
+	}
+
+	/**
+	 * @param window Epochs of Melbourne-W&uuml;bbena running mean, default 100
+	 */
+	public void setWindow(int window) {
+		this.window = window;
+	}
+
+	/**
+	 * @param maxGap Longest gap within arc [ms], default 60 s
+	 */
+	public void setMaxGap(long maxGap) {
+		this.maxGap = maxGap;
+	}
+
+	/**
+	 * Melbourne-W&uuml;bbena slip threshold is max(sigmas * standard deviation, minThreshold)
+	 *
+	 * @param sigmas       default 4
+	 * @param minThreshold [wide-lane cycles], default 1
+	 */
+	public void setMwThreshold(double sigmas, double minThreshold) {
+		this.mwSigmas = sigmas;
+		this.mwMinThreshold = minThreshold;
+	}
+
+	/**
+	 * @param gfThreshold Geometry-free phase prediction error [m], default 0.05
+	 */
+	public void setGfThreshold(double gfThreshold) {
+		this.gfThreshold = gfThreshold;
+	}
+
+	/**
+	 * @param dopplerThreshold Phase change minus integrated doppler [cycles per second of interval, at least 1 s],
+	 *                         default 1
+	 */
+	public void setDopplerThreshold(double dopplerThreshold) {
+		this.dopplerThreshold = dopplerThreshold;
+	}
+
+	/**
+	 * Checks observations of satellite and adds them to its state. Call in order of time; repeated and
+	 * out-of-order epochs (not after the last one of the arc) are ignored and do not change the state.
+	 *
+	 * @param sat      Global satellite index
+	 * @param time     gpstime
+	 * @param channel  GLONASS frequency channel
+	 * @param phase1   [cycles]; if either phase is NaN, epoch is ignored
+	 * @param code1    [m] or NaN
+	 * @param doppler1 [Hz] or NaN
+	 * @param lli1     RINEX loss of lock indicator
+	 * @return SLIP_* and GAP flags, 0 if arc continues or epoch is ignored
+	 */
+	public int update(int sat, long time, int channel,
+	                  double phase1, double code1, float doppler1, int lli1,
+	                  double phase2, double code2, float doppler2, int lli2) {
+		if (Double.isNaN(phase1) || Double.isNaN(phase2)) return 0;
+		LinearCombination lc = LinearCombination.of(signal1, signal2, channel);
+		double gfNow = lc.geometryFreePhase(phase1, phase2);
+		double mw = lc.melbourneWubbena(phase1, phase2, code1, code2);
+		int n = epochs[sat];
+		if (n != 0 && time <= lastTime[sat]) return 0;
+		if (n == 0 || time - lastTime[sat] > maxGap) {
+			start(sat, time, gfNow, mw, phase1, phase2, doppler1, doppler2);
+			return n == 0 ? 0 : GAP;
+		}
+		double dt = (time - lastTime[sat]) / 1000.0;
+		int flags = 0;
+		if (((lli1 | lli2) & 1) != 0) flags |= SLIP_LLI;
+		if (!Double.isNaN(mw) && mwCount[sat] >= 2) {
+			double threshold = Math.max(mwSigmas * Math.sqrt(mwVar[sat]), mwMinThreshold);
+			if (Math.abs(mw - mwMean[sat]) > threshold) flags |= SLIP_MW;
+		}
+		if (n >= 2 && Math.abs(gfNow - (gf[sat] + gfRate[sat] * dt)) > gfThreshold) flags |= SLIP_GF;
+		double dopplerThreshold = this.dopplerThreshold * Math.max(dt, 1);
+		if (dopplerSlip(phase1 - this.phase1[sat], this.doppler1[sat], doppler1, dt, dopplerThreshold)
+				|| dopplerSlip(phase2 - this.phase2[sat], this.doppler2[sat], doppler2, dt, dopplerThreshold)) {
+			flags |= SLIP_DOPPLER;
+		}
+		if (flags != 0) {
+			start(sat, time, gfNow, mw, phase1, phase2, doppler1, doppler2);
+			return flags;
+		}
+		if (!Double.isNaN(mw)) {
+			int k = Math.min(mwCount[sat] + 1, window);
+			double d = mw - mwMean[sat];
+			mwMean[sat] += d / k;
+			mwVar[sat] += (d * (mw - mwMean[sat]) - mwVar[sat]) / k;
+			mwCount[sat] = k;
+		}
+		gfRate[sat] = (gfNow - gf[sat]) / dt;
+		gf[sat] = gfNow;
+		epochs[sat] = n + 1;
+		lastTime[sat] = time;
+		this.phase1[sat] = phase1;
+		this.phase2[sat] = phase2;
+		this.doppler1[sat] = doppler1;
+		this.doppler2[sat] = doppler2;
+		return 0;
+	}
+
+	/**
+	 * Runs {@link #update} for satellites having phases of both signals
+	 *
+	 * @param channels GLONASS frequency channels by global satellite index, null for CDMA systems
+	 * @param flags    Receives flags by global satellite index; not touched for other satellites
+	 * @return Number of satellites with slips
+	 */
+	public int update(@NotNull EpochObservations obs, @Nullable byte[] channels, @NotNull byte[] flags) {
+		SatSet present1 = obs.present(signal1, EpochObservations.PHASE);
+		SatSet present2 = obs.present(signal2, EpochObservations.PHASE);
+		double[] l1 = obs.phaseColumn(signal1), l2 = obs.phaseColumn(signal2);
+		double[] p1 = obs.codeColumn(signal1), p2 = obs.codeColumn(signal2);
+		float[] d1 = obs.dopplerColumn(signal1), d2 = obs.dopplerColumn(signal2);
+		byte[] lli1 = obs.lliColumn(signal1), lli2 = obs.lliColumn(signal2);
+		long time = obs.getTime();
+		int nslips = 0;
+		for (int sat = present1.nextIndex(0); sat >= 0; sat = present1.nextIndex(sat + 1)) {
+			if (!present2.contains(sat)) continue;
+			int f = update(sat, time, channels == null ? 0 : channels[sat],
+					l1[sat], p1[sat], d1[sat], lli1[sat], l2[sat], p2[sat], d2[sat], lli2[sat]);
+			flags[sat] = (byte) f;
+			if ((f & SLIP) != 0) nslips++;
+		}
+		return nslips;
+	}
+
+	/**
+	 * Forgets state of satellite, next epoch starts a new arc
+	 */
+	public void reset(int sat) {
+		epochs[sat] = 0;
+	}
+
+	public void resetAll() {
+		Arrays.fill(epochs, 0);
+	}
+
+	private void start(int sat, long time, double gfNow, double mw, double phase1, double phase2, float doppler1, float doppler2) {
+		epochs[sat] = 1;
+		lastTime[sat] = time;
+		gf[sat] = gfNow;
+		gfRate[sat] = 0;
+		boolean hasMw = !Double.isNaN(mw);
+		mwCount[sat] = hasMw ? 1 : 0;
+		mwMean[sat] = hasMw ? mw : 0;
+		mwVar[sat] = 0;
+		this.phase1[sat] = phase1;
+		this.phase2[sat] = phase2;
+		this.doppler1[sat] = doppler1;
+		this.doppler2[sat] = doppler2;
+	}
+
+	/**
+	 * Phase grows with range, doppler is positive for approaching satellite: dL = -D dt
+	 */
+	private static boolean dopplerSlip(double dphase, float lastDoppler, float doppler, double dt, double threshold) {
+		if (Float.isNaN(lastDoppler) || Float.isNaN(doppler)) return false;
+		return Math.abs(dphase + 0.5 * (lastDoppler + doppler) * dt) > threshold;
+	}
+}
@@ -4,7 +4,6 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.text.ParseException;
-import java.util.Arrays;
 
 /**
  * Created with IntelliJ IDEA.
@@ -72,325 +71,12 @@ public final class Datetime {
 		return null;
 	}
 
+	/**
+	 * @param format See {@link #format(String)}; use {@link DatetimeParser} to parse many times with the same format
+	 */
 	@NotNull
 	public static Datetime parse(String format, String s) throws ParseException {
-		int year = 0;
-		int month = -1;
-		int day = -1;
-		int doy = -1;
-		int hr24 = -1;
-		int hr12 = -1;
-		boolean pm = false;
-		int min = 0;
-		int sec = 0;
-		int mil = 0;
-		int minoff = 0;
-		int offsgn = 1;
-		char[] fmt = format.toCharArray();
-		char[] str = s.toCharArray();
-		int fi = 0;
-		int si = 0;
-		final char YR = 'Y';
-		final char YR2 = 'y';
-		final char MON = 'M';
-		final char DAY = 'D';
-		final char DOY = 'd';
-		final char HR24 = 'H';
-		final char HR12 = 'h';
-		final char AMPMUC = 'P';
-		final char AMPMLC = 'p';
-		final char MIN = 'm';
-		final char SEC = 's';
-		final char ZMIL = 'c';
-		final char MIL = 'C';
-		final char HOFF = 'U';
-		final char MOFF = 'u';
-		final char SOFF = 'z';
-		while (fi < fmt.length && si < str.length) {
-			char fc = fmt[fi++];
-			switch (fc) {
-				case '\\':
-					if (fi == fmt.length) throw new ParseException(format + " : " + (fi - 1), fi - 1);
-					if (si == str.length || str[si++] != fmt[fi++])
-						throw new ParseException(s + " : " + (si - 1), si - 1);
-					break;
-				case SOFF:
-					char c = str[si++];
-					if (c == '+' || c == ' ') offsgn = 1;
-					else if (c == '-') offsgn = -1;
-					else throw new ParseException(s + " : " + (si - 1), si - 1);
-					break;
-				case YR:
-				case MON:
-				case DAY:
-				case HR24:
-				case HR12:
-				case AMPMUC:
-				case AMPMLC:
-				case MIN:
-				case SEC:
-				case ZMIL:
-				case MIL:
-				case HOFF:
-				case MOFF:
-					int fcn = 1;
-					while (fi < fmt.length && fmt[fi] == fc) {
-						fcn++;
-						fi++;
-					}
-					int minlen = 0, maxlen = 0;
-					String[] special = null;
-					switch (fc) {
-						case YR:
-							switch (fcn) {
-								case 4:
-									minlen = 4;
-									maxlen = 4;
-									break;
-								case 3:
-									minlen = 1;
-									maxlen = 4;
-									break;
-								case 2:
-									minlen = 2;
-									maxlen = 2;
-									fc = YR2;
-									break;
-								/*case 1:
-									minlen = 1;
-									maxlen = 2;
-									c = YR2;
-									break;*/
-							}
-							break;
-						case MON:
-							switch (fcn) {
-								case 4:
-									special = MONTH_LONG_NAMES;
-									break;
-								case 3:
-									special = MONTH_SHORT_NAMES;
-									break;
-								case 2:
-									minlen = 2;
-									maxlen = 2;
-									break;
-								case 1:
-									minlen = 1;
-									maxlen = 2;
-									break;
-							}
-							break;
-						case DAY:
-							switch (fcn) {
-								case 4:
-									minlen = 3;
-									maxlen = 3;
-									fc = DOY;
-									break;
-								case 3:
-									minlen = 1;
-									maxlen = 3;
-									fc = DOY;
-									break;
-								case 2:
-									minlen = 2;
-									maxlen = 2;
-									break;
-								case 1:
-									minlen = 1;
-									maxlen = 2;
-									break;
-							}
-							break;
-						case HR24:
-						case HR12:
-						case MIN:
-						case SEC:
-						case HOFF:
-						case MOFF:
-							switch (fcn) {
-								case 2:
-									minlen = 2;
-									maxlen = 2;
-									break;
-								case 1:
-									minlen = 1;
-									maxlen = 2;
-									break;
-							}
-							break;
-						case AMPMUC:
-							switch (fcn) {
-								case 2:
-									special = new String[]{"A.M.", "P.M."};
-									break;
-								case 1:
-									special = new String[]{"AM", "PM"};
-									break;
-							}
-							break;
-						case AMPMLC:
-							switch (fcn) {
-								case 2:
-									special = new String[]{"a.m.", "p.m."};
-									break;
-								case 1:
-									special = new String[]{"am", "pm"};
-									break;
-							}
-							break;
-						case ZMIL:
-							switch (fcn) {
-								case 3:
-								case 2:
-								case 1:
-									minlen = fcn;
-									maxlen = fcn;
-									break;
-							}
-							break;
-						case MIL:
-							switch (fcn) {
-								case 1:
-									minlen = 1;
-									maxlen = 3;
-									break;
-							}
-					}
-					if (special != null) {
-						boolean[] fit = new boolean[special.length];
-						Arrays.fill(fit, true);
-						int mini = 0;
-						int maxi = special.length - 1;
-						int fiti = 0;
-						int found = -1;
-						while (si < str.length) {
-							char sc = str[si++];
-							int nt = 0;
-							for (int i = mini; i <= maxi; i++) {
-								if (fit[i]) {
-									if (special[i].length() - 1 == fiti) {
-										found = i;
-										fit[i] = false;
-									} else if (special[i].charAt(fiti) == sc) {
-										nt++;
-									} else {
-										fit[i] = false;
-									}
-								} else {
-									if (i == mini) mini++;
-									if (i == maxi) maxi--;
-								}
-							}
-							fiti++;
-							if (nt == 0) break;
-						}
-						if (found == -1) throw new ParseException(s + " : " + (si - 1), si - 1);
-						switch (fc) {
-							case MON:
-								month = found;
-								break;
-							case AMPMUC:
-							case AMPMLC:
-								pm = found == 1;
-								break;
-						}
-					} else if (minlen > 0) {
-						StringBuilder sb = new StringBuilder();
-						char sc = 0;
-						while (minlen > 0) {
-							if (si == str.length) throw new ParseException(s + " : " + (si - 1), si - 1);
-							sc = str[si++];
-							if (sc < '0' || sc > '9') throw new ParseException(s + " : " + (si - 1), si - 1);
-							if (!(sc == '0' && sb.length() == 0)) sb.append(sc);
-							minlen--;
-							maxlen--;
-						}
-						if (si < str.length) sc = str[si];
-						while (maxlen > 0 && si < str.length && sc >= '0' && sc <= '9') {
-							if (si == str.length) throw new ParseException(s + " : " + (si - 1), si - 1);
-							si++;
-							if (!(sc == '0' && sb.length() == 0)) sb.append(sc);
-							if (si < str.length) sc = str[si];
-							maxlen--;
-						}
-						if (sb.length() == 0) sb.append('0');
-						int n = Integer.parseInt(sb.toString());
-						switch (fc) {
-							case YR:
-								year = n;
-								break;
-							case YR2:
-								if (n >= 70) year = 1900 + n;
-								else year = 2000 + n;
-								break;
-							case MON:
-								month = n;
-								break;
-							case DAY:
-								day = n;
-								break;
-							case DOY:
-								doy = n;
-								break;
-							case HR24:
-								hr24 = n;
-								break;
-							case HR12:
-								hr12 = n;
-								break;
-							case MIN:
-								min = n;
-								break;
-							case SEC:
-								sec = n;
-								break;
-							case MIL:
-								mil = n;
-								break;
-							case ZMIL:
-								if (fcn == 3) mil = n;
-								else if (fcn == 2) mil = n * 10;
-								else if (fcn == 1) mil = n * 100;
-								break;
-							case HOFF:
-								minoff += n * 60;
-								break;
-							case MOFF:
-								minoff += n;
-								break;
-						}
-					} else {
-						while (fcn > 0) {
-							if (si == str.length || str[si++] != fc)
-								throw new ParseException(s + " : " + (si - 1), si - 1);
-							fcn--;
-						}
-					}
-					break;
-				default:
-					if (str[si++] != fc) throw new ParseException(s + " : " + (si - 1), si - 1);
-					break;
-			}
-		}
-		Datetime dt = new Datetime(year, FIRST_MONTH, FIRST_DAY_OF_MONTH);
-		if (doy != -1) dt.add(Field.DAY_OF_MONTH, doy - 1);
-		else {
-			if (month != -1) dt.set(Field.MONTH, month);
-			if (day != -1) dt.set(Field.DAY_OF_MONTH, day);
-		}
-		if (hr24 != -1) dt.set(Field.HOUR_OF_DAY, hr24);
-		if (hr12 != -1) {
-			if (hr12 == 12) hr12 = 0;
-			if (pm) hr12 += 12;
-			dt.set(Field.HOUR_OF_DAY, hr12);
-		}
-		dt.set(Field.MINUTE, min);
-		dt.set(Field.SECOND, sec);
-		dt.set(Field.MILLISECOND, mil);
-		dt.add(Field.MINUTE, -minoff * offsgn);
-		return dt;
+		return DatetimeParser.forPattern(format).parseDatetime(s);
 	}
 
 	public enum Field {
@@ -410,6 +96,15 @@ public final class Datetime {
 	private boolean timeActual = false;
 	private boolean fieldsActual = false;
 	private final int fields[] = new int[NFIELDS];
+	/*
+	 * Date of the day last converted by setFieldsFromTime: [cachedDayStart, cachedDayEnd) in UNIX time.
+	 * Converting another time of the same day (setTime() on a stream of epochs) needs only ms-of-day arithmetic.
+	 */
+	private long cachedDayStart = 1;
+	private long cachedDayEnd = 0;
+	private int cachedYear;
+	private int cachedMonth;
+	private int cachedDay;
 	public static final String[] MONTH_SHORT_NAMES = {"Nul",
 			"Jan", "Feb", "Mar", "Apr", "May", "Jun",
 			"Jul", "Aug", "Sep", "Oct", "Nov", "Dec"};
@@ -567,21 +262,10 @@ public final class Datetime {
 			fields[YEAR.ordinal()] += ny;
 			fields[MONTH.ordinal()] -= ny * 12;
 		}
-		while (fields[DAY_OF_MONTH.ordinal()] < FIRST_DAY_OF_MONTH) {//TODO optimize
-			fields[MONTH.ordinal()]--;
-			if (fields[MONTH.ordinal()] < FIRST_MONTH) {
-				fields[YEAR.ordinal()]--;
-				fields[MONTH.ordinal()] = LAST_MONTH;
-			}
-			fields[DAY_OF_MONTH.ordinal()] += daysPerMonth();
-		}
-		while (fields[DAY_OF_MONTH.ordinal()] >= daysPerMonth() + FIRST_DAY_OF_MONTH) {//TODO optimize
-			fields[DAY_OF_MONTH.ordinal()] -= daysPerMonth();
-			fields[MONTH.ordinal()]++;
-			if (fields[MONTH.ordinal()] > LAST_MONTH) {
-				fields[YEAR.ordinal()]++;
-				fields[MONTH.ordinal()] = FIRST_MONTH;
-			}
+		int dom = fields[DAY_OF_MONTH.ordinal()];
+		if (dom < FIRST_DAY_OF_MONTH || dom >= daysPerMonth() + FIRST_DAY_OF_MONTH) {
+			setDateFromDays(daysFromCivil(fields[YEAR.ordinal()], fields[MONTH.ordinal()], FIRST_DAY_OF_MONTH)
+					+ dom - FIRST_DAY_OF_MONTH);
 		}
 
 		timeActual = false;
@@ -612,74 +296,92 @@ public final class Datetime {
 	}
 
 	private void setFieldsFromTime() {
-		long MS_IN_DAY = 86400000L;
-		long dt =  (time%MS_IN_DAY+MS_IN_DAY)%MS_IN_DAY;
-		long t = (time - dt)/MS_IN_DAY;
-		fields[MILLISECOND.ordinal()] = (int) (dt % 1000);
+		if (time >= cachedDayStart && time < cachedDayEnd) {
+			fields[YEAR.ordinal()] = cachedYear;
+			fields[MONTH.ordinal()] = cachedMonth;
+			fields[DAY_OF_MONTH.ordinal()] = cachedDay;
+		} else {
+			long days = Math.floorDiv(time, GnssUtils.MS_IN_DAY);
+			setDateFromDays(days);
+			cachedDayStart = days * GnssUtils.MS_IN_DAY;
+			cachedDayEnd = cachedDayStart + GnssUtils.MS_IN_DAY;
+			cachedYear = fields[YEAR.ordinal()];
+			cachedMonth = fields[MONTH.ordinal()];
+			cachedDay = fields[DAY_OF_MONTH.ordinal()];
+		}
+		int dt = (int) (time - cachedDayStart);
+		fields[MILLISECOND.ordinal()] = dt % 1000;
 		dt /= 1000;
-		fields[SECOND.ordinal()] = (int) (dt % 60);
+		fields[SECOND.ordinal()] = dt % 60;
 		dt /= 60;
-		fields[MINUTE.ordinal()] = (int) (dt % 60);
+		fields[MINUTE.ordinal()] = dt % 60;
 		dt /= 60;
-		fields[HOUR_OF_DAY.ordinal()] = (int) (dt % 24);
+		fields[HOUR_OF_DAY.ordinal()] = dt;
+		fieldsActual = true;
+	}
 
-		// t -- number of days since Jan 1 1970 (2 equals Jan 3)
-		fields[YEAR.ordinal()] = 1970;
+	/**
+	 * Days since Jan 1 1970 (2 equals Jan 3) --> YEAR, MONTH, DAY_OF_MONTH
+	 */
+	private void setDateFromDays(long days) {
+		// Proleptic Gregorian calendar as 400-year eras of 146097 days, years starting on Mar 1
+		days += DAYS_0000_03_01_TO_1970;
+		long era = Math.floorDiv(days, DAYS_IN_400_YEARS);
+		int doe = (int) (days - era * DAYS_IN_400_YEARS); // [0, 146096]
+		int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365; // [0, 399]
+		int doy = doe - (365 * yoe + yoe / 4 - yoe / 100); // [0, 365], Mar 1 is 0
+		int mp = (5 * doy + 2) / 153; // [0, 11], Mar is 0
+		int month = mp < 10 ? mp + 3 : mp - 9;
+		fields[YEAR.ordinal()] = (int) (era * 400 + yoe) + (month <= LEAP_DAY_MONTH ? 1 : 0);
+		fields[MONTH.ordinal()] = month;
+		fields[DAY_OF_MONTH.ordinal()] = doy - (153 * mp + 2) / 5 + FIRST_DAY_OF_MONTH;
+	}
 
-		if (t >= 365 * 2) {
-			t -= 365 * 2;
-			fields[YEAR.ordinal()] += 2;
-		}
-		int dp4y = 365 * 4 + 1;
-		long days = (t%dp4y+dp4y)%dp4y;
-		fields[YEAR.ordinal()] += 4 * ((t-days) / dp4y);
-
-		t = days;
-		while (true) {
-			int dy = daysInYear(fields[YEAR.ordinal()]);
-			if (t >= dy) {
-				t -= dy;
-				fields[YEAR.ordinal()]++;
-			} else break;
-		}
-		// t -- number of days since Jan 1 (2 equals Jan 3)
-		fields[MONTH.ordinal()] = FIRST_MONTH;
-		fields[DAY_OF_MONTH.ordinal()] = FIRST_DAY_OF_MONTH;
-		for (int i = FIRST_MONTH; i <= LAST_MONTH; i++) {
-			int dpm = daysPerMonth();
-			if (dpm > t) {
-				fields[DAY_OF_MONTH.ordinal()] += t;
-				break;
-			} else {
-				fields[MONTH.ordinal()]++;
-				t -= dpm;
-			}
-		}
-		fieldsActual = true;
+	/**
+	 * 1 Mar 0000 - 1 Jan 1970, in days
+	 */
+	private static final long DAYS_0000_03_01_TO_1970 = 719468;
+	private static final long DAYS_IN_400_YEARS = 146097;
+
+	/**
+	 * Date --> days since Jan 1 1970 (2 equals Jan 3).
+	 * Day of month may be out of range and carries over to other months
+	 *
+	 * @param month {@link #FIRST_MONTH}..{@link #LAST_MONTH}
+	 */
+	public static long daysFromCivil(int year, int month, int day) {
+		long y = month <= LEAP_DAY_MONTH ? year - 1 : year;
+		long era = Math.floorDiv(y, 400);
+		int yoe = (int) (y - era * 400); // [0, 399]
+		int doy = (153 * (month > LEAP_DAY_MONTH ? month - 3 : month + 9) + 2) / 5 + day - FIRST_DAY_OF_MONTH;
+		long doe = yoe * 365L + yoe / 4 - yoe / 100 + doy;
+		return era * DAYS_IN_400_YEARS + doe - DAYS_0000_03_01_TO_1970;
 	}
 
 	private void setTimeFromFields() {
-		int dy = fields[YEAR.ordinal()] - 1970;
-		time = 0;
-		if (dy >= 3) {
-			dy -= 3;
-			time += (3 * 365 + 1) * GnssUtils.MS_IN_DAY;
-		}
-		int dp4y = 365 * 4 + 1;
-		time += (dy / 4) * dp4y * GnssUtils.MS_IN_DAY;
-		time += (dy % 4) * 365 * GnssUtils.MS_IN_DAY;
-		for (int i = FIRST_MONTH; i < fields[MONTH.ordinal()]; i++) {
-			time += GnssUtils.MS_IN_DAY * daysPerMonth(fields[YEAR.ordinal()], i);
-		}
-		time += GnssUtils.MS_IN_DAY * (fields[DAY_OF_MONTH.ordinal()] - FIRST_MONTH);
-		time += fields[HOUR_OF_DAY.ordinal()] * 3600000L;
-		time += fields[MINUTE.ordinal()] * 60000L;
-		time += fields[SECOND.ordinal()] * 1000L;
-		time += fields[MILLISECOND.ordinal()];
-
+		time = timeFromFields(fields[YEAR.ordinal()], fields[MONTH.ordinal()], fields[DAY_OF_MONTH.ordinal()],
+				fields[HOUR_OF_DAY.ordinal()], fields[MINUTE.ordinal()], fields[SECOND.ordinal()],
+				fields[MILLISECOND.ordinal()]);
 		timeActual = true;
 	}
 
+	/**
+	 * Calendar fields --> UNIX time. Fields out of range carry over to higher ones
+	 */
+	static long timeFromFields(int year, int month, int day, int hour, int minute, int second, int millisecond) {
+		if (month < FIRST_MONTH || month > LAST_MONTH) {
+			int ny = Math.floorDiv(month - FIRST_MONTH, 12);
+			year += ny;
+			month -= ny * 12;
+		}
+		long time = daysFromCivil(year, month, day) * GnssUtils.MS_IN_DAY;
+		time += hour * 3600000L;
+		time += minute * 60000L;
+		time += second * 1000L;
+		time += millisecond;
+		return time;
+	}
+
 
 	public boolean before(Datetime other) {
 		return getTime() < other.getTime();
@@ -693,218 +395,13 @@ public final class Datetime {
 		return getTime() == other.getTime();
 	}
 
+	/**
+	 * Formats this time as local time of {@code utcPlusMinutes} zone; time is not shifted
+	 */
 	@NotNull
 	protected String formatWithTZ(String format, int utcPlusMinutes) {
-		int tzh = Math.abs(utcPlusMinutes) / 60;
-		int tzm = Math.abs(utcPlusMinutes) % 60;
-		char[] s = format.toCharArray();
-		int i = 0;
-		StringBuilder sb = new StringBuilder(s.length);
-		boolean escape = false;
-		while (i < s.length) {
-			char c = s[i++];
-			if (escape) {
-				escape = false;
-				sb.append(c);
-				continue;
-			}
-			if (c == '\\') {
-				escape = true;
-				continue;
-			}
-			int n = 1;
-			while (i < s.length && s[i] == c) {
-				i++;
-				n++;
-			}
-			switch (c) {
-				case 'Y':
-					switch (n) {
-						case 1:
-							sb.append(year() % 100);
-							break;
-						case 2:
-							sb.append(String.format("%02d", year() % 100));
-							break;
-						case 3:
-							sb.append(year());
-							break;
-						case 4:
-						default:
-							sb.append(String.format("%04d", year()));
-							i -= (n - 4);
-							break;
-					}
-					break;
-				case 'M':
-					switch (n) {
-						case 1:
-							sb.append(month() - FIRST_MONTH + 1);
-							break;
-						case 2:
-							sb.append(String.format("%02d", month() - FIRST_MONTH + 1));
-							break;
-						case 3:
-							sb.append(MONTH_SHORT_NAMES[month() - FIRST_MONTH + 1]);
-							break;
-						case 4:
-						default:
-							sb.append(MONTH_LONG_NAMES[month() - FIRST_MONTH + 1]);
-							i -= (n - 4);
-							break;
-					}
-					break;
-				case 'D':
-					switch (n) {
-						case 1:
-							sb.append(String.valueOf(day() - FIRST_DAY_OF_MONTH + 1));
-							break;
-						case 2:
-							sb.append(String.format("%02d", day() - FIRST_DAY_OF_MONTH + 1));
-							break;
-						case 3:
-							sb.append(dayOfYear());
-							break;
-						case 4:
-						default:
-							sb.append(String.format("%03d", dayOfYear()));
-							i -= (n - 4);
-							break;
-					}
-					break;
-				case 'H':
-					switch (n) {
-						case 1:
-							sb.append(hour24());
-							break;
-						case 2:
-						default:
-							sb.append(String.format("%02d", hour24()));
-							i -= (n - 2);
-							break;
-					}
-					break;
-				case 'h':
-					switch (n) {
-						case 1:
-							sb.append(hour12());
-							break;
-						case 2:
-						default:
-							sb.append(String.format("%02d", hour12()));
-							i -= (n - 2);
-							break;
-					}
-					break;
-				case 'm':
-					switch (n) {
-						case 1:
-							sb.append(min());
-							break;
-						case 2:
-						default:
-							sb.append(String.format("%02d", min()));
-							i -= (n - 2);
-							break;
-					}
-					break;
-				case 's':
-					switch (n) {
-						case 1:
-							sb.append(sec());
-							break;
-						case 2:
-						default:
-							sb.append(String.format("%02d", sec()));
-							i -= (n - 2);
-							break;
-					}
-					break;
-				case 'c':
-					switch (n) {
-						case 1:
-							sb.append(String.format("%01d", Math.round(milli() / 100.0)));
-							break;
-						case 2:
-							sb.append(String.format("%02d", Math.round(milli() / 10.0)));
-							break;
-						case 3:
-						default:
-							sb.append(String.format("%03d", milli()));
-							i -= (n - 3);
-					}
-					break;
-				case 'C':
-					sb.append(milli());
-					i -= (n - 1);
-					break;
-				case 'P':
-					switch (n) {
-						case 1:
-							sb.append(isAM() ? "AM" : "PM");
-							break;
-						case 2:
-						default:
-							sb.append(isAM() ? "A.M." : "P.M.");
-							i -= (n - 2);
-							break;
-					}
-					break;
-				case 'p':
-					switch (n) {
-						case 1:
-							sb.append(isAM() ? "am" : "pm");
-							break;
-						case 2:
-						default:
-							sb.append(isAM() ? "a.m." : "p.m.");
-							i -= (n - 2);
-							break;
-					}
-					break;
-				case 'z':
-					sb.append(utcPlusMinutes>=0?"+":"-");
-					i -= (n - 1);
-					break;
-				case 'U':
-					switch (n) {
-						case 1:
-							sb.append(tzh);
-							i -= (n - 1);
-							break;
-						case 2:
-						default:
-							sb.append(String.format("%02d", tzh));
-							i -= (n - 2);
-							break;
-					}
-					break;
-				case 'u':
-					switch (n) {
-						case 2:
-						default:
-							sb.append(String.format("%02d", tzm));
-							i -= (n - 2);
-							break;
-					}
-					break;
-				case 'W':
-					switch (n) {
-						case 1:
-							sb.append(DOWSZ_SHORT_NAMES[dayOfWeekSZ()]);
-							break;
-						case 2:
-						default:
-							sb.append(DOWSZ_LONG_NAMES[dayOfWeekSZ()]);
-							i -= (n - 2);
-							break;
-					}
-					break;
-				default:
-					while (n-- > 0) sb.append(c);
-					break;
-			}
-		}
+		StringBuilder sb = new StringBuilder(format.length() + 8);
+		DatetimeFormat.forPattern(format).formatShiftedTo(this, utcPlusMinutes, sb);
 		return sb.toString();
 	}
 
@@ -945,6 +442,7 @@ public final class Datetime {
 	 * z - TZ sign<br/>
 	 * UU - TZ hour offset, subtracted from hours <br/>
 	 * uu - TZ minute offset, subtracted from minutes <br/>
+	 * Use {@link DatetimeFormat} to format many times with the same pattern
 	 */
 	@NotNull
 	public String format(String format) {
@@ -977,7 +475,7 @@ public final class Datetime {
 	 * @return day of week 0-6, Sunday is Zero
 	 */
 	public int dayOfWeekSZ() {
-		return (int) (getTime() / GnssUtils.MS_IN_DAY + SZ_THURSDAY) % 7;
+		return (int) Math.floorMod(Math.floorDiv(getTime(), GnssUtils.MS_IN_DAY) + SZ_THURSDAY, 7);
 	}
 
 	public int hour() {
@@ -0,0 +1,481 @@
+package aero.geosystems.gnss;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Compiled {@link Datetime#format(String)} pattern.
+ * <p/>
+ * Pattern is tokenized once; formatting appends straight into a {@link StringBuilder}, {@code char[]},
+ * ASCII {@code byte[]} or {@link ByteBuffer} without creating any objects. Instances are immutable and can be
+ * shared between threads; formatted {@link Datetime} should not be.
+ * <pre>
+ * static final DatetimeFormat LOG_TIME = DatetimeFormat.compile(Datetime.DEFAULT_FORMAT);
+ * ...
+ * LOG_TIME.formatTo(dt.setTime(t), sb);
+ * </pre>
+ */
+public final class DatetimeFormat {
+	public static final DatetimeFormat DEFAULT = compile(Datetime.DEFAULT_FORMAT);
+	public static final DatetimeFormat DEFAULT_NOMS = compile(Datetime.DEFAULT_FORMAT_NOMS);
+	public static final DatetimeFormat DEFAULT_DATE = compile(Datetime.DEFAULT_FORMAT_DATE);
+	public static final DatetimeFormat XML = compile(Datetime.XML_FORMAT);
+	public static final DatetimeFormat RFC_822 = compile(Datetime.RFC_822_FORMAT);
+
+	private static final byte LITERAL = 0;
+	private static final byte YEAR = 1;
+	private static final byte YEAR2 = 2;
+	private static final byte MONTH = 3;
+	private static final byte MONTH_SHORT = 4;
+	private static final byte MONTH_LONG = 5;
+	private static final byte DAY = 6;
+	private static final byte DAY_OF_YEAR = 7;
+	private static final byte HOUR24 = 8;
+	private static final byte HOUR12 = 9;
+	private static final byte MINUTE = 10;
+	private static final byte SECOND = 11;
+	private static final byte DECISECOND = 12;
+	private static final byte CENTISECOND = 13;
+	private static final byte MILLISECOND = 14;
+	/**
+	 * literal is "AM", next literal is "PM"
+	 */
+	private static final byte AMPM = 15;
+	private static final byte TZ_SIGN = 16;
+	private static final byte TZ_HOURS = 17;
+	private static final byte TZ_MINUTES = 18;
+	private static final byte DOW_SHORT = 19;
+	private static final byte DOW_LONG = 20;
+
+	private static final String[][] AMPM_NAMES = {
+			{"AM", "PM"}, {"A.M.", "P.M."}, {"am", "pm"}, {"a.m.", "p.m."}
+	};
+
+	/**
+	 * Scratch for formatting with time zone offset
+	 */
+	private static final ThreadLocal<Datetime> SHIFTED = new ThreadLocal<Datetime>() {
+		@Override
+		protected Datetime initialValue() {
+			return new Datetime(0);
+		}
+	};
+
+	private static final int TO_STRING_BUILDER = 0;
+	private static final int TO_CHARS = 1;
+	private static final int TO_BYTES = 2;
+	private static final int TO_BYTE_BUFFER = 3;
+
+	@NotNull
+	private final String pattern;
+	private final byte[] ops;
+	/**
+	 * Minimal number of digits (zero padding) for numeric ops
+	 */
+	private final int[] widths;
+	private final String[] literals;
+
+	private DatetimeFormat(@NotNull String pattern, byte[] ops, int[] widths, String[] literals) {
+		this.pattern = pattern;
+		this.ops = ops;
+		this.widths = widths;
+		this.literals = literals;
+	}
+
+	/**
+	 * Same as {@link #compile}, but returns predefined instance for predefined patterns
+	 */
+	@NotNull
+	public static DatetimeFormat forPattern(@NotNull String pattern) {
+		switch (pattern) {
+			case Datetime.DEFAULT_FORMAT:
+				return DEFAULT;
+			case Datetime.DEFAULT_FORMAT_NOMS:
+				return DEFAULT_NOMS;
+			case Datetime.DEFAULT_FORMAT_DATE:
+				return DEFAULT_DATE;
+			case Datetime.XML_FORMAT:
+				return XML;
+			case Datetime.RFC_822_FORMAT:
+				return RFC_822;
+			default:
+				return compile(pattern);
+		}
+	}
+
+	/**
+	 * @param pattern See {@link Datetime#format(String)}
+	 */
+	@NotNull
+	public static DatetimeFormat compile(@NotNull String pattern) {
+		char[] s = pattern.toCharArray();
+		byte[] ops = new byte[s.length];
+		int[] widths = new int[s.length];
+		String[] literals = new String[s.length];
+		int nops = 0;
+		StringBuilder literal = new StringBuilder();
+		int i = 0;
+		boolean escape = false;
+		while (i < s.length) {
+			char c = s[i++];
+			if (escape) {
+				escape = false;
+				literal.append(c);
+				continue;
+			}
+			if (c == '\\') {
+				escape = true;
+				continue;
+			}
+			int n = 1;
+			while (i < s.length && s[i] == c) {
+				i++;
+				n++;
+			}
+			byte op = LITERAL;
+			int width = 0;
+			String[] names = null;
+			// Extra repetitions beyond the longest token are tokenized again, as in Datetime.formatWithTZ
+			switch (c) {
+				case 'Y':
+					if (n <= 2) {
+						op = YEAR2;
+						width = n == 2 ? 2 : 0;
+					} else {
+						op = YEAR;
+						width = n == 3 ? 0 : 4;
+						if (n > 4) i -= n - 4;
+					}
+					break;
+				case 'M':
+					if (n <= 2) {
+						op = MONTH;
+						width = n == 2 ? 2 : 0;
+					} else {
+						op = n == 3 ? MONTH_SHORT : MONTH_LONG;
+						if (n > 4) i -= n - 4;
+					}
+					break;
+				case 'D':
+					if (n <= 2) {
+						op = DAY;
+						width = n == 2 ? 2 : 0;
+					} else {
+						op = DAY_OF_YEAR;
+						width = n == 3 ? 0 : 3;
+						if (n > 4) i -= n - 4;
+					}
+					break;
+				case 'H':
+				case 'h':
+				case 'm':
+				case 's':
+				case 'U':
+					op = c == 'H' ? HOUR24 : c == 'h' ? HOUR12 : c == 'm' ? MINUTE : c == 's' ? SECOND : TZ_HOURS;
+					width = n == 1 ? 0 : 2;
+					if (n > 2) i -= n - 2;
+					break;
+				case 'u':
+					op = TZ_MINUTES;
+					width = 2;
+					// single 'u' swallows the next pattern char
+					i -= n - 2;
+					break;
+				case 'c':
+					op = n == 1 ? DECISECOND : n == 2 ? CENTISECOND : MILLISECOND;
+					width = n > 3 ? 3 : n;
+					if (n > 3) i -= n - 3;
+					break;
+				case 'C':
+					op = MILLISECOND;
+					i -= n - 1;
+					break;
+				case 'P':
+				case 'p':
+					op = AMPM;
+					names = AMPM_NAMES[(c == 'p' ? 2 : 0) + (n == 1 ? 0 : 1)];
+					if (n > 2) i -= n - 2;
+					break;
+				case 'z':
+					op = TZ_SIGN;
+					i -= n - 1;
+					break;
+				case 'W':
+					op = n == 1 ? DOW_SHORT : DOW_LONG;
+					if (n > 2) i -= n - 2;
+					break;
+				default:
+					while (n-- > 0) literal.append(c);
+					break;
+			}
+			if (op == LITERAL) continue;
+			if (literal.length() > 0) {
+				ops[nops] = LITERAL;
+				literals[nops++] = literal.toString();
+				literal.setLength(0);
+			}
+			if (op == AMPM) {
+				ops[nops] = AMPM;
+				literals[nops++] = names[0];
+				ops[nops] = LITERAL;
+				literals[nops++] = names[1];
+				continue;
+			}
+			ops[nops] = op;
+			widths[nops++] = width;
+		}
+		if (literal.length() > 0) {
+			ops[nops] = LITERAL;
+			literals[nops++] = literal.toString();
+		}
+		return new DatetimeFormat(pattern,
+				Arrays.copyOf(ops, nops), Arrays.copyOf(widths, nops), Arrays.copyOf(literals, nops));
+	}
+
+	@NotNull
+	public String pattern() {
+		return pattern;
+	}
+
+	@NotNull
+	public String format(@NotNull Datetime dt) {
+		return formatTo(dt, 0, new StringBuilder(pattern.length() + 8)).toString();
+	}
+
+	/**
+	 * Same as {@link Datetime#format(String, int, int)}
+	 */
+	@NotNull
+	public String format(@NotNull Datetime dt, int utcPlusMinutes) {
+		return formatTo(dt, utcPlusMinutes, new StringBuilder(pattern.length() + 8)).toString();
+	}
+
+	@NotNull
+	public StringBuilder formatTo(@NotNull Datetime dt, @NotNull StringBuilder sb) {
+		return formatTo(dt, 0, sb);
+	}
+
+	/**
+	 * Time zone offset is applied to a per-thread copy of {@code dt}, {@code dt} is not changed
+	 */
+	@NotNull
+	public StringBuilder formatTo(@NotNull Datetime dt, int utcPlusMinutes, @NotNull StringBuilder sb) {
+		render(dt, utcPlusMinutes, sb, TO_STRING_BUILDER, sb.length());
+		return sb;
+	}
+
+	/**
+	 * @return Offset after the last written char
+	 * @throws ArrayIndexOutOfBoundsException if {@code dst} is too short
+	 */
+	public int formatTo(@NotNull Datetime dt, @NotNull char[] dst, int off) {
+		return render(dt, 0, dst, TO_CHARS, off);
+	}
+
+	/**
+	 * @return Offset after the last written char
+	 * @throws ArrayIndexOutOfBoundsException if {@code dst} is too short
+	 */
+	public int formatTo(@NotNull Datetime dt, int utcPlusMinutes, @NotNull char[] dst, int off) {
+		return render(dt, utcPlusMinutes, dst, TO_CHARS, off);
+	}
+
+	/**
+	 * Writes ASCII; non-ASCII literal chars are truncated to low byte
+	 *
+	 * @return Offset after the last written byte
+	 * @throws ArrayIndexOutOfBoundsException if {@code dst} is too short
+	 */
+	public int formatTo(@NotNull Datetime dt, @NotNull byte[] dst, int off) {
+		return render(dt, 0, dst, TO_BYTES, off);
+	}
+
+	/**
+	 * Writes ASCII; non-ASCII literal chars are truncated to low byte
+	 *
+	 * @return Offset after the last written byte
+	 * @throws ArrayIndexOutOfBoundsException if {@code dst} is too short
+	 */
+	public int formatTo(@NotNull Datetime dt, int utcPlusMinutes, @NotNull byte[] dst, int off) {
+		return render(dt, utcPlusMinutes, dst, TO_BYTES, off);
+	}
+
+	/**
+	 * Writes ASCII at buffer position and advances it
+	 *
+	 * @throws IndexOutOfBoundsException if {@code dst} has not enough remaining bytes; position is not changed then
+	 */
+	@NotNull
+	public ByteBuffer formatTo(@NotNull Datetime dt, @NotNull ByteBuffer dst) {
+		return formatTo(dt, 0, dst);
+	}
+
+	/**
+	 * Writes ASCII at buffer position and advances it
+	 *
+	 * @throws IndexOutOfBoundsException if {@code dst} has not enough remaining bytes; position is not changed then
+	 */
+	@NotNull
+	public ByteBuffer formatTo(@NotNull Datetime dt, int utcPlusMinutes, @NotNull ByteBuffer dst) {
+		dst.position(render(dt, utcPlusMinutes, dst, TO_BYTE_BUFFER, dst.position()));
+		return dst;
+	}
+
+	/**
+	 * Formats {@code dt} as if it is local time of {@code utcPlusMinutes} zone
+	 * (like {@link Datetime#formatWithTZ(String, int)})
+	 */
+	void formatShiftedTo(@NotNull Datetime dt, int utcPlusMinutes, @NotNull StringBuilder sb) {
+		renderFields(dt, utcPlusMinutes, sb, TO_STRING_BUILDER, sb.length());
+	}
+
+	private int render(Datetime dt, int utcPlusMinutes, Object dst, int target, int off) {
+		if (utcPlusMinutes == 0) return renderFields(dt, 0, dst, target, off);
+		Datetime shifted = SHIFTED.get();
+		shifted.setTime(dt.getTime() + utcPlusMinutes * 60000L);
+		return renderFields(shifted, utcPlusMinutes, dst, target, off);
+	}
+
+	private int renderFields(Datetime dt, int utcPlusMinutes, Object dst, int target, int off) {
+		int tzh = Math.abs(utcPlusMinutes) / 60;
+		int tzm = Math.abs(utcPlusMinutes) % 60;
+		for (int k = 0; k < ops.length; k++) {
+			int w = widths[k];
+			switch (ops[k]) {
+				case LITERAL:
+					off = putString(dst, target, off, literals[k]);
+					break;
+				case YEAR:
+					off = putNumber(dst, target, off, dt.year(), w);
+					break;
+				case YEAR2:
+					off = putNumber(dst, target, off, dt.year() % 100, w);
+					break;
+				case MONTH:
+					off = putNumber(dst, target, off, dt.month() - Datetime.FIRST_MONTH + 1, w);
+					break;
+				case MONTH_SHORT:
+					off = putString(dst, target, off, Datetime.MONTH_SHORT_NAMES[dt.month() - Datetime.FIRST_MONTH + 1]);
+					break;
+				case MONTH_LONG:
+					off = putString(dst, target, off, Datetime.MONTH_LONG_NAMES[dt.month() - Datetime.FIRST_MONTH + 1]);
+					break;
+				case DAY:
+					off = putNumber(dst, target, off, dt.day() - Datetime.FIRST_DAY_OF_MONTH + 1, w);
+					break;
+				case DAY_OF_YEAR:
+					off = putNumber(dst, target, off, dt.dayOfYear(), w);
+					break;
+				case HOUR24:
+					off = putNumber(dst, target, off, dt.hour24(), w);
+					break;
+				case HOUR12:
+					off = putNumber(dst, target, off, dt.hour12(), w);
+					break;
+				case MINUTE:
+					off = putNumber(dst, target, off, dt.min(), w);
+					break;
+				case SECOND:
+					off = putNumber(dst, target, off, dt.sec(), w);
+					break;
+				case DECISECOND:
+					off = putNumber(dst, target, off, Math.round(dt.milli() / 100.0), w);
+					break;
+				case CENTISECOND:
+					off = putNumber(dst, target, off, Math.round(dt.milli() / 10.0), w);
+					break;
+				case MILLISECOND:
+					off = putNumber(dst, target, off, dt.milli(), w);
+					break;
+				case AMPM:
+					off = putString(dst, target, off, dt.isAM() ? literals[k] : literals[k + 1]);
+					k++;
+					break;
+				case TZ_SIGN:
+					off = putChar(dst, target, off, utcPlusMinutes >= 0 ? '+' : '-');
+					break;
+				case TZ_HOURS:
+					off = putNumber(dst, target, off, tzh, w);
+					break;
+				case TZ_MINUTES:
+					off = putNumber(dst, target, off, tzm, w);
+					break;
+				case DOW_SHORT:
+					off = putString(dst, target, off, Datetime.DOWSZ_SHORT_NAMES[dt.dayOfWeekSZ()]);
+					break;
+				case DOW_LONG:
+					off = putString(dst, target, off, Datetime.DOWSZ_LONG_NAMES[dt.dayOfWeekSZ()]);
+					break;
+			}
+		}
+		return off;
+	}
+
+	private static void reserve(Object dst, int target, int off, int len) {
+		if (target == TO_STRING_BUILDER) {
+			((StringBuilder) dst).setLength(off + len);
+		} else if (target == TO_BYTE_BUFFER && off + len > ((ByteBuffer) dst).limit()) {
+			throw new IndexOutOfBoundsException();
+		}
+	}
+
+	private static void put(Object dst, int target, int i, char c) {
+		switch (target) {
+			case TO_STRING_BUILDER:
+				((StringBuilder) dst).setCharAt(i, c);
+				break;
+			case TO_CHARS:
+				((char[]) dst)[i] = c;
+				break;
+			case TO_BYTES:
+				((byte[]) dst)[i] = (byte) c;
+				break;
+			case TO_BYTE_BUFFER:
+				((ByteBuffer) dst).put(i, (byte) c);
+				break;
+		}
+	}
+
+	private static int putChar(Object dst, int target, int off, char c) {
+		reserve(dst, target, off, 1);
+		put(dst, target, off, c);
+		return off + 1;
+	}
+
+	private static int putString(Object dst, int target, int off, String s) {
+		int len = s.length();
+		reserve(dst, target, off, len);
+		for (int i = 0; i < len; i++) put(dst, target, off + i, s.charAt(i));
+		return off + len;
+	}
+
+	/**
+	 * Same as {@code String.format("%0"+width+"d", v)}, or {@code String.valueOf(v)} for zero width
+	 */
+	private static int putNumber(Object dst, int target, int off, long v, int width) {
+		boolean neg = v < 0;
+		// negative values are never Long.MIN_VALUE here: they come from int fields
+		long a = neg ? -v : v;
+		int digits = 1;
+		for (long x = a; x >= 10; x /= 10) digits++;
+		int len = Math.max(digits + (neg ? 1 : 0), width);
+		reserve(dst, target, off, len);
+		int end = off + len;
+		int i = end;
+		do {
+			put(dst, target, --i, (char) ('0' + a % 10));
+			a /= 10;
+		} while (a > 0);
+		int first = off;
+		if (neg) put(dst, target, first++, '-');
+		while (i > first) put(dst, target, --i, '0');
+		return end;
+	}
+
+	@Override
+	public String toString() {
+		return pattern;
+	}
+}
@@ -0,0 +1,474 @@
+package aero.geosystems.gnss;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+import java.text.ParseException;
+import java.util.Arrays;
+
+/**
+ * Compiled {@link Datetime#parse(String, String)} pattern.
+ * <p/>
+ * Pattern is tokenized once; parsing reads a {@link CharSequence}, ASCII {@code byte[]} or {@link ByteBuffer}
+ * region in place and returns UNIX time without creating any objects (except for {@link ParseException}).
+ * Instances are immutable and can be shared between threads.
+ * <p/>
+ * Same as {@link Datetime#parse}, parsing stops when either pattern or input ends: trailing input is ignored,
+ * and fields missing from truncated input keep their defaults.
+ */
+public final class DatetimeParser {
+	public static final DatetimeParser DEFAULT = compile(Datetime.DEFAULT_FORMAT);
+	public static final DatetimeParser DEFAULT_NOMS = compile(Datetime.DEFAULT_FORMAT_NOMS);
+	public static final DatetimeParser DEFAULT_DATE = compile(Datetime.DEFAULT_FORMAT_DATE);
+	public static final DatetimeParser XML = compile(Datetime.XML_FORMAT);
+
+	/**
+	 * arg is the char
+	 */
+	private static final byte CHAR = 0;
+	/**
+	 * arg is the char, arg2 is count
+	 */
+	private static final byte CHAR_RUN = 1;
+	private static final byte TZ_SIGN = 2;
+	/**
+	 * arg is field, arg2 is minimal length, arg3 is maximal length
+	 */
+	private static final byte NUMBER = 3;
+	/**
+	 * arg is field, names are the alternatives
+	 */
+	private static final byte NAME = 4;
+	/**
+	 * Pattern ends with escape char
+	 */
+	private static final byte BAD_ESCAPE = 5;
+
+	private static final int F_YEAR = 0;
+	private static final int F_YEAR2 = 1;
+	private static final int F_MONTH = 2;
+	private static final int F_DAY = 3;
+	private static final int F_DAY_OF_YEAR = 4;
+	private static final int F_HOUR24 = 5;
+	private static final int F_HOUR12 = 6;
+	private static final int F_MINUTE = 7;
+	private static final int F_SECOND = 8;
+	private static final int F_MILLISECOND = 9;
+	private static final int F_DECISECOND = 10;
+	private static final int F_CENTISECOND = 11;
+	private static final int F_TZ_HOURS = 12;
+	private static final int F_TZ_MINUTES = 13;
+	private static final int F_AMPM = 14;
+
+	private static final String[] AMPM_UC = {"AM", "PM"};
+	private static final String[] AMPM_UC_DOTS = {"A.M.", "P.M."};
+	private static final String[] AMPM_LC = {"am", "pm"};
+	private static final String[] AMPM_LC_DOTS = {"a.m.", "p.m."};
+
+	private static final int FROM_CHARS = 0;
+	private static final int FROM_BYTES = 1;
+	private static final int FROM_BYTE_BUFFER = 2;
+
+	@NotNull
+	private final String pattern;
+	private final byte[] ops;
+	private final int[] args;
+	private final int[] args2;
+	private final int[] args3;
+	private final String[][] names;
+
+	private DatetimeParser(@NotNull String pattern, byte[] ops, int[] args, int[] args2, int[] args3, String[][] names) {
+		this.pattern = pattern;
+		this.ops = ops;
+		this.args = args;
+		this.args2 = args2;
+		this.args3 = args3;
+		this.names = names;
+	}
+
+	/**
+	 * Same as {@link #compile}, but returns predefined instance for predefined patterns
+	 */
+	@NotNull
+	public static DatetimeParser forPattern(@NotNull String pattern) {
+		switch (pattern) {
+			case Datetime.DEFAULT_FORMAT:
+				return DEFAULT;
+			case Datetime.DEFAULT_FORMAT_NOMS:
+				return DEFAULT_NOMS;
+			case Datetime.DEFAULT_FORMAT_DATE:
+				return DEFAULT_DATE;
+			case Datetime.XML_FORMAT:
+				return XML;
+			default:
+				return compile(pattern);
+		}
+	}
+
+	/**
+	 * @param pattern See {@link Datetime#format(String)}
+	 */
+	@NotNull
+	public static DatetimeParser compile(@NotNull String pattern) {
+		char[] fmt = pattern.toCharArray();
+		int n = fmt.length;
+		byte[] ops = new byte[n];
+		int[] args = new int[n];
+		int[] args2 = new int[n];
+		int[] args3 = new int[n];
+		String[][] names = new String[n][];
+		int nops = 0;
+		int fi = 0;
+		while (fi < n) {
+			char fc = fmt[fi++];
+			int k = nops++;
+			switch (fc) {
+				case '\\':
+					if (fi == n) {
+						ops[k] = BAD_ESCAPE;
+						args[k] = fi - 1;
+					} else {
+						ops[k] = CHAR;
+						args[k] = fmt[fi++];
+					}
+					break;
+				case 'z':
+					ops[k] = TZ_SIGN;
+					break;
+				case 'Y':
+				case 'M':
+				case 'D':
+				case 'H':
+				case 'h':
+				case 'P':
+				case 'p':
+				case 'm':
+				case 's':
+				case 'c':
+				case 'C':
+				case 'U':
+				case 'u':
+					int fcn = 1;
+					while (fi < n && fmt[fi] == fc) {
+						fcn++;
+						fi++;
+					}
+					int field = -1;
+					int minlen = 0;
+					int maxlen = 0;
+					String[] special = null;
+					switch (fc) {
+						case 'Y':
+							if (fcn == 4) {
+								field = F_YEAR;
+								minlen = maxlen = 4;
+							} else if (fcn == 3) {
+								field = F_YEAR;
+								minlen = 1;
+								maxlen = 4;
+							} else if (fcn == 2) {
+								field = F_YEAR2;
+								minlen = maxlen = 2;
+							}
+							break;
+						case 'M':
+							field = F_MONTH;
+							if (fcn == 4) special = Datetime.MONTH_LONG_NAMES;
+							else if (fcn == 3) special = Datetime.MONTH_SHORT_NAMES;
+							else if (fcn <= 2) {
+								minlen = fcn;
+								maxlen = 2;
+							}
+							break;
+						case 'D':
+							if (fcn <= 2) {
+								field = F_DAY;
+								minlen = fcn;
+								maxlen = 2;
+							} else if (fcn <= 4) {
+								field = F_DAY_OF_YEAR;
+								minlen = fcn == 4 ? 3 : 1;
+								maxlen = 3;
+							}
+							break;
+						case 'H':
+						case 'h':
+						case 'm':
+						case 's':
+						case 'U':
+						case 'u':
+							field = fc == 'H' ? F_HOUR24 : fc == 'h' ? F_HOUR12 : fc == 'm' ? F_MINUTE
+									: fc == 's' ? F_SECOND : fc == 'U' ? F_TZ_HOURS : F_TZ_MINUTES;
+							if (fcn <= 2) {
+								minlen = fcn;
+								maxlen = 2;
+							}
+							break;
+						case 'P':
+							field = F_AMPM;
+							if (fcn == 2) special = AMPM_UC_DOTS;
+							else if (fcn == 1) special = AMPM_UC;
+							break;
+						case 'p':
+							field = F_AMPM;
+							if (fcn == 2) special = AMPM_LC_DOTS;
+							else if (fcn == 1) special = AMPM_LC;
+							break;
+						case 'c':
+							field = fcn == 1 ? F_DECISECOND : fcn == 2 ? F_CENTISECOND : F_MILLISECOND;
+							if (fcn <= 3) minlen = maxlen = fcn;
+							break;
+						case 'C':
+							field = F_MILLISECOND;
+							if (fcn == 1) {
+								minlen = 1;
+								maxlen = 3;
+							}
+							break;
+					}
+					if (special != null) {
+						ops[k] = NAME;
+						args[k] = field;
+						names[k] = special;
+					} else if (minlen > 0) {
+						ops[k] = NUMBER;
+						args[k] = field;
+						args2[k] = minlen;
+						args3[k] = maxlen;
+					} else {
+						// unsupported repetition count -- literal chars
+						ops[k] = CHAR_RUN;
+						args[k] = fc;
+						args2[k] = fcn;
+					}
+					break;
+				default:
+					ops[k] = CHAR;
+					args[k] = fc;
+					break;
+			}
+		}
+		return new DatetimeParser(pattern, Arrays.copyOf(ops, nops), Arrays.copyOf(args, nops),
+				Arrays.copyOf(args2, nops), Arrays.copyOf(args3, nops), Arrays.copyOf(names, nops));
+	}
+
+	@NotNull
+	public String pattern() {
+		return pattern;
+	}
+
+	/**
+	 * @return UNIX time
+	 */
+	public long parse(@NotNull CharSequence s) throws ParseException {
+		return parse(s, FROM_CHARS, 0, s.length());
+	}
+
+	/**
+	 * @param end End index of parsed region (exclusive)
+	 * @return UNIX time
+	 */
+	public long parse(@NotNull CharSequence s, int start, int end) throws ParseException {
+		checkRegion(s.length(), start, end);
+		return parse(s, FROM_CHARS, start, end);
+	}
+
+	/**
+	 * @param end End index of parsed region (exclusive)
+	 * @return UNIX time
+	 */
+	public long parse(@NotNull byte[] ascii, int start, int end) throws ParseException {
+		checkRegion(ascii.length, start, end);
+		return parse(ascii, FROM_BYTES, start, end);
+	}
+
+	/**
+	 * Reads ASCII with absolute indices, buffer position is not changed
+	 *
+	 * @param end End index of parsed region (exclusive)
+	 * @return UNIX time
+	 */
+	public long parse(@NotNull ByteBuffer ascii, int start, int end) throws ParseException {
+		checkRegion(ascii.limit(), start, end);
+		return parse(ascii, FROM_BYTE_BUFFER, start, end);
+	}
+
+	@NotNull
+	public Datetime parseDatetime(@NotNull CharSequence s) throws ParseException {
+		return new Datetime(parse(s));
+	}
+
+	private static void checkRegion(int length, int start, int end) {
+		if (start < 0 || end > length || start > end) {
+			throw new IndexOutOfBoundsException("Region " + start + ".." + end + " out of " + length);
+		}
+	}
+
+	private static char at(Object src, int source, int i) {
+		switch (source) {
+			case FROM_CHARS:
+				return ((CharSequence) src).charAt(i);
+			case FROM_BYTES:
+				return (char) (((byte[]) src)[i] & 0xff);
+			default:
+				return (char) (((ByteBuffer) src).get(i) & 0xff);
+		}
+	}
+
+	private static ParseException error(Object src, int source, int start, int end, int si) {
+		StringBuilder sb = new StringBuilder(end - start + 8);
+		for (int i = start; i < end; i++) sb.append(at(src, source, i));
+		return new ParseException(sb + " : " + (si - start), si - start);
+	}
+
+	private long parse(Object src, int source, int start, int end) throws ParseException {
+		int year = 0;
+		int month = -1;
+		int day = -1;
+		int doy = -1;
+		int hr24 = -1;
+		int hr12 = -1;
+		boolean pm = false;
+		int min = 0;
+		int sec = 0;
+		int mil = 0;
+		int minoff = 0;
+		int offsgn = 1;
+		int si = start;
+		for (int k = 0; k < ops.length && si < end; k++) {
+			switch (ops[k]) {
+				case BAD_ESCAPE:
+					throw new ParseException(pattern + " : " + args[k], args[k]);
+				case CHAR:
+					if (at(src, source, si++) != args[k]) throw error(src, source, start, end, si - 1);
+					break;
+				case CHAR_RUN:
+					for (int i = args2[k]; i > 0; i--) {
+						if (si == end || at(src, source, si++) != args[k]) throw error(src, source, start, end, si - 1);
+					}
+					break;
+				case TZ_SIGN: {
+					char c = at(src, source, si++);
+					if (c == '+' || c == ' ') offsgn = 1;
+					else if (c == '-') offsgn = -1;
+					else throw error(src, source, start, end, si - 1);
+					break;
+				}
+				case NUMBER: {
+					int minlen = args2[k];
+					int maxlen = args3[k];
+					int n = 0;
+					while (minlen > 0) {
+						if (si == end) throw error(src, source, start, end, si - 1);
+						char c = at(src, source, si++);
+						if (c < '0' || c > '9') throw error(src, source, start, end, si - 1);
+						n = n * 10 + (c - '0');
+						minlen--;
+						maxlen--;
+					}
+					while (maxlen > 0 && si < end) {
+						char c = at(src, source, si);
+						if (c < '0' || c > '9') break;
+						si++;
+						n = n * 10 + (c - '0');
+						maxlen--;
+					}
+					switch (args[k]) {
+						case F_YEAR:
+							year = n;
+							break;
+						case F_YEAR2:
+							year = n >= 70 ? 1900 + n : 2000 + n;
+							break;
+						case F_MONTH:
+							month = n;
+							break;
+						case F_DAY:
+							day = n;
+							break;
+						case F_DAY_OF_YEAR:
+							doy = n;
+							break;
+						case F_HOUR24:
+							hr24 = n;
+							break;
+						case F_HOUR12:
+							hr12 = n;
+							break;
+						case F_MINUTE:
+							min = n;
+							break;
+						case F_SECOND:
+							sec = n;
+							break;
+						case F_MILLISECOND:
+							mil = n;
+							break;
+						case F_CENTISECOND:
+							mil = n * 10;
+							break;
+						case F_DECISECOND:
+							mil = n * 100;
+							break;
+						case F_TZ_HOURS:
+							minoff += n * 60;
+							break;
+						case F_TZ_MINUTES:
+							minoff += n;
+							break;
+					}
+					break;
+				}
+				case NAME: {
+					String[] special = names[k];
+					// bit i set -- special[i] still matches
+					int fit = (1 << special.length) - 1;
+					int fiti = 0;
+					int found = -1;
+					while (si < end) {
+						char sc = at(src, source, si++);
+						int nt = 0;
+						for (int i = 0; i < special.length; i++) {
+							if ((fit & (1 << i)) == 0) continue;
+							if (special[i].length() - 1 == fiti) {
+								found = i;
+								fit &= ~(1 << i);
+							} else if (special[i].charAt(fiti) == sc) {
+								nt++;
+							} else {
+								fit &= ~(1 << i);
+							}
+						}
+						fiti++;
+						if (nt == 0) break;
+					}
+					if (found == -1) throw error(src, source, start, end, si - 1);
+					if (args[k] == F_MONTH) month = found;
+					else pm = found == 1;
+					break;
+				}
+			}
+		}
+		int hour = 0;
+		if (hr24 != -1) hour = hr24;
+		if (hr12 != -1) {
+			if (hr12 == 12) hr12 = 0;
+			if (pm) hr12 += 12;
+			hour = hr12;
+		}
+		int m = Datetime.FIRST_MONTH;
+		int d = Datetime.FIRST_DAY_OF_MONTH;
+		if (doy != -1) {
+			d = doy;
+		} else {
+			if (month != -1) m = month;
+			if (day != -1) d = day;
+		}
+		return Datetime.timeFromFields(year, m, d, hour, min - minoff * offsgn, sec, mil);
+	}
+
+	@Override
+	public String toString() {
+		return pattern;
+	}
+}
@@ -0,0 +1,36 @@
+package aero.geosystems.gnss;
+
+/**
+ * Broadcast ephemeris of one satellite, evaluated at GPS time with nanosecond resolution ({@link GpsTimeNs}).
+ * <p/>
+ * Evaluation writes {@link #STRIDE} values in ECEF of the system's reference frame: X, Y, Z [m],
+ * VX, VY, VZ [m/s], clock bias [s], clock drift [s/s].
+ */
+public interface Ephemeris {
+	int X = 0;
+	int Y = 1;
+	int Z = 2;
+	int VX = 3;
+	int VY = 4;
+	int VZ = 5;
+	int CLOCK_BIAS = 6;
+	int CLOCK_DRIFT = 7;
+	int STRIDE = 8;
+
+	/**
+	 * @return Satellite id, see {@link SatSystem}
+	 */
+	int getSatId();
+
+	/**
+	 * @return Reference time of ephemeris, GPS time ns
+	 */
+	long getToe();
+
+	/**
+	 * Writes position, velocity and clock at time t to dst[off..off+STRIDE-1]
+	 *
+	 * @param t GPS time ns
+	 */
+	void evaluate(long t, double[] dst, int off);
+}
@@ -0,0 +1,16 @@
+package aero.geosystems.gnss;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Source of orbit and clock models of satellites
+ */
+public interface EphemerisSource {
+	/**
+	 * @param sat Global satellite index, see {@link SatSystem#globalIndex}
+	 * @param t   GPS time ns
+	 * @return Ephemeris valid at t, or null
+	 */
+	@Nullable
+	Ephemeris get(int sat, long t);
+}
@@ -0,0 +1,207 @@
+package aero.geosystems.gnss;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Ephemerides of all satellites by global satellite index ({@link SatSystem#globalIndex}), ordered by toe.
+ * <p/>
+ * {@link #get} returns ephemeris with toe nearest to t, if it is within max age of the system. Each satellite
+ * remembers the last returned ephemeris and the time interval where it is nearest, so a stream of nearby times
+ * costs two comparisons; a miss falls back to binary search.
+ * <p/>
+ * Ephemerides of a satellite are an immutable snapshot, replaced with copy-on-write compare-and-set, so
+ * decoders can {@link #put} while any number of threads read without locks.
+ */
+public final class EphemerisStore implements EphemerisSource {
+	/**
+	 * Default number of ephemerides kept per satellite
+	 */
+	public static final int DEFAULT_CAPACITY = 16;
+
+	private final int capacity;
+	/**
+	 * SatSystem.ordinal() -> max |t - toe| [ns]
+	 */
+	private final long[] maxAges = new long[SatSystem.count];
+	private final AtomicReferenceArray<Entry> entries = new AtomicReferenceArray<Entry>(SatSystem.totalNumIds);
+
+	/**
+	 * Ephemerides of one satellite, never modified after publication except the remembered index
+	 */
+	private static final class Entry {
+		final Ephemeris[] ephs;
+		/**
+		 * ephs[i] is nearest for t in [bounds[i], bounds[i+1])
+		 */
+		final long[] bounds;
+		int last;
+
+		Entry(Ephemeris[] ephs) {
+			this.ephs = ephs;
+			bounds = new long[ephs.length + 1];
+			bounds[0] = Long.MIN_VALUE;
+			for (int i = 1; i < ephs.length; i++) {
+				long t1 = ephs[i - 1].getToe(), t2 = ephs[i].getToe();
+				bounds[i] = t1 + (t2 - t1) / 2;
+			}
+			bounds[ephs.length] = Long.MAX_VALUE;
+		}
+
+		int find(long t) {
+			int i = last;
+			if (t >= bounds[i] && t < bounds[i + 1]) return i;
+			int lo = 0, hi = ephs.length - 1;
+			while (lo < hi) {
+				int mid = (lo + hi + 1) >>> 1;
+				if (bounds[mid] <= t) lo = mid;
+				else hi = mid - 1;
+			}
+			last = lo;
+			return lo;
+		}
+	}
+
+	public EphemerisStore() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param capacity Ephemerides kept per satellite, oldest are dropped
+	 */
+	public EphemerisStore(int capacity) {
+		if (capacity < 1) throw new IllegalArgumentException("capacity " + capacity);
+		this.capacity = capacity;
+		for (SatSystem system : SatSystem.values()) {
+			maxAges[system.ordinal()] = defaultMaxAge(system);
+		}
+	}
+
+	/**
+	 * @return Half of usual validity interval: 2 h for GPS, QZSS and Galileo, 1 h for BeiDou, 15 min for GLONASS
+	 * and SBAS [ns]
+	 */
+	public static long defaultMaxAge(@NotNull SatSystem system) {
+		switch (system) {
+			case GLONASS:
+			case SBAS:
+				return 15 * 60 * GpsTimeNs.NS_IN_SECOND;
+			case BDS:
+				return GnssUtils.MS_IN_HOUR * GpsTimeNs.NS_IN_MS;
+			default:
+				return 2 * GnssUtils.MS_IN_HOUR * GpsTimeNs.NS_IN_MS;
+		}
+	}
+
+	/**
+	 * Sets max |t - toe| of ephemeris returned for t; not synchronized, set before use
+	 */
+	public void setMaxAge(@NotNull SatSystem system, long maxAgeNs) {
+		maxAges[system.ordinal()] = maxAgeNs;
+	}
+
+	/**
+	 * Adds ephemeris, replacing one with same toe
+	 *
+	 * @return false if same ephemeris object is already there, or it is older than all of full store
+	 * @throws IllegalArgumentException if satellite id is not valid
+	 */
+	public boolean put(@NotNull Ephemeris eph) {
+		int sat = SatSystem.globalIndex(eph.getSatId());
+		if (sat < 0) throw new IllegalArgumentException("Invalid satellite id " + eph.getSatId());
+		long toe = eph.getToe();
+		while (true) {
+			Entry entry = entries.get(sat);
+			Ephemeris[] old = entry == null ? new Ephemeris[0] : entry.ephs;
+			int i = 0;
+			while (i < old.length && old[i].getToe() < toe) i++;
+			Ephemeris[] ephs;
+			if (i < old.length && old[i].getToe() == toe) {
+				if (old[i] == eph) return false;
+				ephs = old.clone();
+				ephs[i] = eph;
+			} else {
+				if (old.length == capacity && i == 0) return false;
+				int drop = old.length == capacity ? 1 : 0;
+				ephs = new Ephemeris[old.length + 1 - drop];
+				System.arraycopy(old, drop, ephs, 0, i - drop);
+				ephs[i - drop] = eph;
+				System.arraycopy(old, i, ephs, i - drop + 1, old.length - i);
+			}
+			if (entries.compareAndSet(sat, entry, new Entry(ephs))) return true;
+		}
+	}
+
+	/**
+	 * @param sat Global satellite index
+	 * @param t   GPS time ns
+	 * @return Ephemeris with toe nearest to t, or null if there is none within max age
+	 */
+	@Nullable
+	@Override
+	public Ephemeris get(int sat, long t) {
+		Entry entry = entries.get(sat);
+		if (entry == null) return null;
+		Ephemeris eph = entry.ephs[entry.find(t)];
+		long age = t - eph.getToe();
+		long maxAge = maxAges[SatSystem.byGlobalIndex(sat).ordinal()];
+		return (age <= maxAge && age >= -maxAge) ? eph : null;
+	}
+
+	/**
+	 * Same as {@link #get}, by satellite id
+	 */
+	@Nullable
+	public Ephemeris getById(int satId, long t) {
+		int sat = SatSystem.globalIndex(satId);
+		return sat < 0 ? null : get(sat, t);
+	}
+
+	/**
+	 * @return Ephemeris with latest toe, or null
+	 */
+	@Nullable
+	public Ephemeris latest(int sat) {
+		Entry entry = entries.get(sat);
+		return entry == null ? null : entry.ephs[entry.ephs.length - 1];
+	}
+
+	/**
+	 * @return Number of ephemerides of satellite
+	 */
+	public int size(int sat) {
+		Entry entry = entries.get(sat);
+		return entry == null ? 0 : entry.ephs.length;
+	}
+
+	/**
+	 * Removes ephemerides that can't be returned for t or later, i.e. with toe &lt; t - max age
+	 */
+	public void removeExpired(long t) {
+		for (int sat = 0; sat < SatSystem.totalNumIds; sat++) {
+			long minToe = t - maxAges[SatSystem.byGlobalIndex(sat).ordinal()];
+			while (true) {
+				Entry entry = entries.get(sat);
+				if (entry == null) break;
+				int n = 0;
+				while (n < entry.ephs.length && entry.ephs[n].getToe() < minToe) n++;
+				if (n == 0) break;
+				Entry updated = null;
+				if (n < entry.ephs.length) {
+					Ephemeris[] ephs = new Ephemeris[entry.ephs.length - n];
+					System.arraycopy(entry.ephs, n, ephs, 0, ephs.length);
+					updated = new Entry(ephs);
+				}
+				if (entries.compareAndSet(sat, entry, updated)) break;
+			}
+		}
+	}
+
+	public void clear() {
+		for (int sat = 0; sat < SatSystem.totalNumIds; sat++) {
+			entries.set(sat, null);
+		}
+	}
+}
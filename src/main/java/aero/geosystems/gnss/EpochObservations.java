@@ -0,0 +1,268 @@
+package aero.geosystems.gnss;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * Observations of one epoch in columns: per {@link RawSignal}, one array per observable, indexed by global
+ * satellite index ({@link SatSystem#globalIndex}).
+ * <p/>
+ * Pseudorange [m] and carrier phase [cycles] columns are {@code double[]}, doppler [Hz] and SNR [dB-Hz] are
+ * {@code float[]}, loss of lock indicators are {@code byte[]}. Absent values are NaN (0 for LLI), so columns can
+ * be passed directly to bulk methods of {@link LinearCombination}; which values are present is kept in a
+ * {@link SatSet} per signal and observable.
+ * <p/>
+ * Columns of a signal are allocated on its first use and kept by {@link #clear()}, which resets only present
+ * values. Not thread-safe.
+ */
+public final class EpochObservations {
+	public static final int CODE = 0;
+	public static final int PHASE = 1;
+	public static final int DOPPLER = 2;
+	public static final int SNR = 3;
+	public static final int NOBSERVABLES = 4;
+
+	private static final int NSIGNALS = RawSignal.values().length;
+
+	private final double[][] code = new double[NSIGNALS][];
+	private final double[][] phase = new double[NSIGNALS][];
+	private final float[][] doppler = new float[NSIGNALS][];
+	private final float[][] snr = new float[NSIGNALS][];
+	private final byte[][] lli = new byte[NSIGNALS][];
+	/**
+	 * [signal][observable] -> satellites having value
+	 */
+	private final SatSet[][] present = new SatSet[NSIGNALS][];
+	private final SatSet satellites = new SatSet();
+	/**
+	 * Signals with observations since last clear(), in order of first observation
+	 */
+	private final RawSignal[] signals = new RawSignal[NSIGNALS];
+	private final boolean[] used = new boolean[NSIGNALS];
+	private int nsignals;
+	private long time;
+
+	/**
+	 * @return Epoch time, gpstime
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	public void setTime(long time) {
+		this.time = time;
+	}
+
+	public void setCode(int sat, @NotNull RawSignal signal, double meters) {
+		int s = use(sat, signal, CODE);
+		code[s][sat] = meters;
+	}
+
+	/**
+	 * @param lli RINEX loss of lock indicator
+	 */
+	public void setPhase(int sat, @NotNull RawSignal signal, double cycles, int lli) {
+		int s = use(sat, signal, PHASE);
+		phase[s][sat] = cycles;
+		this.lli[s][sat] = (byte) lli;
+	}
+
+	public void setDoppler(int sat, @NotNull RawSignal signal, float hz) {
+		int s = use(sat, signal, DOPPLER);
+		doppler[s][sat] = hz;
+	}
+
+	public void setSnr(int sat, @NotNull RawSignal signal, float dbhz) {
+		int s = use(sat, signal, SNR);
+		snr[s][sat] = dbhz;
+	}
+
+	/**
+	 * @return Pseudorange [m] or NaN
+	 */
+	public double getCode(int sat, @NotNull RawSignal signal) {
+		double[] c = code[signal.ordinal()];
+		return c == null ? Double.NaN : c[sat];
+	}
+
+	/**
+	 * @return Carrier phase [cycles] or NaN
+	 */
+	public double getPhase(int sat, @NotNull RawSignal signal) {
+		double[] c = phase[signal.ordinal()];
+		return c == null ? Double.NaN : c[sat];
+	}
+
+	public int getLli(int sat, @NotNull RawSignal signal) {
+		byte[] c = lli[signal.ordinal()];
+		return c == null ? 0 : c[sat];
+	}
+
+	/**
+	 * @return Doppler [Hz] or NaN
+	 */
+	public float getDoppler(int sat, @NotNull RawSignal signal) {
+		float[] c = doppler[signal.ordinal()];
+		return c == null ? Float.NaN : c[sat];
+	}
+
+	/**
+	 * @return SNR [dB-Hz] or NaN
+	 */
+	public float getSnr(int sat, @NotNull RawSignal signal) {
+		float[] c = snr[signal.ordinal()];
+		return c == null ? Float.NaN : c[sat];
+	}
+
+	/**
+	 * @return Pseudorange column [m], indexed by global satellite index; do not modify
+	 */
+	@NotNull
+	public double[] codeColumn(@NotNull RawSignal signal) {
+		return code[columns(signal.ordinal())];
+	}
+
+	/**
+	 * @return Carrier phase column [cycles], indexed by global satellite index; do not modify
+	 */
+	@NotNull
+	public double[] phaseColumn(@NotNull RawSignal signal) {
+		return phase[columns(signal.ordinal())];
+	}
+
+	/**
+	 * @return Loss of lock indicator column, indexed by global satellite index; do not modify
+	 */
+	@NotNull
+	public byte[] lliColumn(@NotNull RawSignal signal) {
+		return lli[columns(signal.ordinal())];
+	}
+
+	/**
+	 * @return Doppler column [Hz], indexed by global satellite index; do not modify
+	 */
+	@NotNull
+	public float[] dopplerColumn(@NotNull RawSignal signal) {
+		return doppler[columns(signal.ordinal())];
+	}
+
+	/**
+	 * @return SNR column [dB-Hz], indexed by global satellite index; do not modify
+	 */
+	@NotNull
+	public float[] snrColumn(@NotNull RawSignal signal) {
+		return snr[columns(signal.ordinal())];
+	}
+
+	/**
+	 * @param observable CODE, PHASE, DOPPLER or SNR
+	 * @return Satellites having observable of signal; do not modify
+	 */
+	@NotNull
+	public SatSet present(@NotNull RawSignal signal, int observable) {
+		return present[columns(signal.ordinal())][observable];
+	}
+
+	public boolean has(int sat, @NotNull RawSignal signal, int observable) {
+		SatSet[] p = present[signal.ordinal()];
+		return p != null && p[observable].contains(sat);
+	}
+
+	/**
+	 * @return Satellites having any observation; do not modify
+	 */
+	@NotNull
+	public SatSet satellites() {
+		return satellites;
+	}
+
+	/**
+	 * @return Number of signals observed since last clear()
+	 */
+	public int signalCount() {
+		return nsignals;
+	}
+
+	/**
+	 * @param i 0..signalCount()-1
+	 */
+	@NotNull
+	public RawSignal signalAt(int i) {
+		return signals[i];
+	}
+
+	/**
+	 * Removes all observations; time is kept
+	 */
+	public void clear() {
+		for (int i = 0; i < nsignals; i++) {
+			int s = signals[i].ordinal();
+			SatSet[] p = present[s];
+			clear(code[s], p[CODE]);
+			clear(phase[s], lli[s], p[PHASE]);
+			clear(doppler[s], p[DOPPLER]);
+			clear(snr[s], p[SNR]);
+			used[s] = false;
+		}
+		nsignals = 0;
+		satellites.clear();
+	}
+
+	private int use(int sat, RawSignal signal, int observable) {
+		int s = columns(signal.ordinal());
+		if (!used[s]) {
+			used[s] = true;
+			signals[nsignals++] = signal;
+		}
+		present[s][observable].add(sat);
+		satellites.add(sat);
+		return s;
+	}
+
+	/**
+	 * Allocates columns of signal
+	 */
+	private int columns(int s) {
+		if (present[s] == null) {
+			int n = SatSystem.totalNumIds;
+			code[s] = new double[n];
+			phase[s] = new double[n];
+			doppler[s] = new float[n];
+			snr[s] = new float[n];
+			lli[s] = new byte[n];
+			Arrays.fill(code[s], Double.NaN);
+			Arrays.fill(phase[s], Double.NaN);
+			Arrays.fill(doppler[s], Float.NaN);
+			Arrays.fill(snr[s], Float.NaN);
+			SatSet[] p = new SatSet[NOBSERVABLES];
+			for (int i = 0; i < NOBSERVABLES; i++) {
+				p[i] = new SatSet();
+			}
+			present[s] = p;
+		}
+		return s;
+	}
+
+	private static void clear(double[] column, SatSet present) {
+		for (int sat = present.nextIndex(0); sat >= 0; sat = present.nextIndex(sat + 1)) {
+			column[sat] = Double.NaN;
+		}
+		present.clear();
+	}
+
+	private static void clear(double[] column, byte[] lli, SatSet present) {
+		for (int sat = present.nextIndex(0); sat >= 0; sat = present.nextIndex(sat + 1)) {
+			column[sat] = Double.NaN;
+			lli[sat] = 0;
+		}
+		present.clear();
+	}
+
+	private static void clear(float[] column, SatSet present) {
+		for (int sat = present.nextIndex(0); sat >= 0; sat = present.nextIndex(sat + 1)) {
+			column[sat] = Float.NaN;
+		}
+		present.clear();
+	}
+}
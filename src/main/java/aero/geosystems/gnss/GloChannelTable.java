@@ -0,0 +1,114 @@
+package aero.geosystems.gnss;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * GLONASS slot number -> frequency channel table, and back.
+ * <p/>
+ * Instances never change; {@link #with} returns a modified copy. Table in use is
+ * {@link GnssUtils#getGloChannelTable()}, updated from almanac or ephemeris data with
+ * {@link GnssUtils#updateGloChannel}.
+ */
+public final class GloChannelTable {
+	/**
+	 * Channel of slot without one
+	 */
+	public static final int UNKNOWN = Integer.MIN_VALUE;
+	public static final int MAX_SLOT = 32;
+	public static final int MIN_CHANNEL = RawSignal.MIN_FREQUENCY_CHANNEL;
+	public static final int MAX_CHANNEL = RawSignal.MAX_FREQUENCY_CHANNEL;
+
+	public static final GloChannelTable EMPTY = new GloChannelTable(new int[0]);
+
+	/**
+	 * slot-1 -> channel or UNKNOWN
+	 */
+	private final int[] channels = new int[MAX_SLOT];
+	/**
+	 * channel-MIN_CHANNEL -> bit (slot-1) set for every slot of channel
+	 */
+	private final int[] slotMasks = new int[MAX_CHANNEL - MIN_CHANNEL + 1];
+
+	/**
+	 * @param channelsBySlot Element slot-1 is channel of slot, or UNKNOWN
+	 * @throws IllegalArgumentException if there are more than MAX_SLOT slots or channel is out of range
+	 */
+	public GloChannelTable(@NotNull int[] channelsBySlot) {
+		if (channelsBySlot.length > MAX_SLOT) throw new IllegalArgumentException("More than " + MAX_SLOT + " slots");
+		Arrays.fill(channels, UNKNOWN);
+		for (int i = 0; i < channelsBySlot.length; i++) {
+			int channel = channelsBySlot[i];
+			if (channel == UNKNOWN) continue;
+			checkChannel(channel);
+			channels[i] = channel;
+			slotMasks[channel - MIN_CHANNEL] |= 1 << i;
+		}
+	}
+
+	private static void checkChannel(int channel) {
+		if (channel < MIN_CHANNEL || channel > MAX_CHANNEL) throw new IllegalArgumentException("Invalid frequency channel " + channel);
+	}
+
+	/**
+	 * @param slot GLONASS slot number 1..MAX_SLOT
+	 * @return Frequency channel, UNKNOWN if slot has none or is out of range
+	 */
+	@Contract(pure = true)
+	public int channel(int slot) {
+		return (slot >= 1 && slot <= MAX_SLOT) ? channels[slot - 1] : UNKNOWN;
+	}
+
+	/**
+	 * @return Bit (slot-1) is set for each slot with channel, 0 if channel is out of range
+	 */
+	@Contract(pure = true)
+	public int slotMask(int channel) {
+		return (channel >= MIN_CHANNEL && channel <= MAX_CHANNEL) ? slotMasks[channel - MIN_CHANNEL] : 0;
+	}
+
+	/**
+	 * @return Lowest slot with channel, or 0 if there is none
+	 */
+	@Contract(pure = true)
+	public int slot(int channel) {
+		int mask = slotMask(channel);
+		return mask == 0 ? 0 : Integer.numberOfTrailingZeros(mask) + 1;
+	}
+
+	/**
+	 * @return Element slot-1 is channel of slot, or UNKNOWN
+	 */
+	@NotNull
+	public int[] toArray() {
+		return channels.clone();
+	}
+
+	/**
+	 * @param channel New channel of slot, or UNKNOWN to remove it
+	 * @return Table with channel of slot changed; this if it is already so
+	 * @throws IllegalArgumentException if slot or channel is out of range
+	 */
+	@NotNull
+	@Contract(pure = true)
+	public GloChannelTable with(int slot, int channel) {
+		if (slot < 1 || slot > MAX_SLOT) throw new IllegalArgumentException("Invalid GLONASS slot " + slot);
+		if (channel != UNKNOWN) checkChannel(channel);
+		if (channels[slot - 1] == channel) return this;
+		int[] copy = channels.clone();
+		copy[slot - 1] = channel;
+		return new GloChannelTable(copy);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return this == o || o instanceof GloChannelTable && Arrays.equals(channels, ((GloChannelTable) o).channels);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(channels);
+	}
+}
@@ -0,0 +1,178 @@
+package aero.geosystems.gnss;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * GLONASS broadcast ephemeris: PZ-90 state vector at tb, integrated with 4th order Runge-Kutta in ECEF
+ * (GLONASS ICD A.3.1.2) with central field, C_20 term, earth rotation and broadcast luni-solar accelerations.
+ * <p/>
+ * {@link #evaluate} integrates from tb every time, up to 15 minutes in {@link #STEP_S} steps; for streams of
+ * epochs use {@link GlonassPropagator}, which continues from the last integrated state.
+ * Clock bias is -tauN + gammaN * (t - tb).
+ */
+public final class GlonassEphemeris implements Ephemeris {
+	/**
+	 * Integration step [s]
+	 */
+	public static final double STEP_S = 60;
+
+	private static final double J2_TERM = 1.5 * GnssConstants.C_20 * GnssConstants.MU * GnssConstants.A_e * GnssConstants.A_e;
+	private static final double OMEGA2 = GnssConstants.OMEGA_EARTH * GnssConstants.OMEGA_EARTH;
+
+	/**
+	 * Broadcast parameters as decoded: PZ-90 ECEF coordinates [m], velocities [m/s], luni-solar accelerations
+	 * [m/s^2]; tb is GPS time ns (converted from GLONASS time by the caller)
+	 */
+	public static class Elements {
+		public int satId;
+		public int channel;
+		public long tb;
+		public double x;
+		public double y;
+		public double z;
+		public double vx;
+		public double vy;
+		public double vz;
+		public double ax;
+		public double ay;
+		public double az;
+		public double tauN;
+		public double gammaN;
+	}
+
+	public final int satId;
+	/**
+	 * Frequency channel
+	 */
+	public final int channel;
+	public final long tb;
+	public final double x;
+	public final double y;
+	public final double z;
+	public final double vx;
+	public final double vy;
+	public final double vz;
+	public final double ax;
+	public final double ay;
+	public final double az;
+	public final double tauN;
+	public final double gammaN;
+
+	/**
+	 * @throws IllegalArgumentException if satellite is not GLONASS
+	 */
+	public GlonassEphemeris(@NotNull Elements el) {
+		if (SatSystem.byId(el.satId) != SatSystem.GLONASS) {
+			throw new IllegalArgumentException("Not a GLONASS satellite " + el.satId);
+		}
+		satId = el.satId;
+		channel = el.channel;
+		tb = el.tb;
+		x = el.x;
+		y = el.y;
+		z = el.z;
+		vx = el.vx;
+		vy = el.vy;
+		vz = el.vz;
+		ax = el.ax;
+		ay = el.ay;
+		az = el.az;
+		tauN = el.tauN;
+		gammaN = el.gammaN;
+	}
+
+	@Override
+	public int getSatId() {
+		return satId;
+	}
+
+	@Override
+	public long getToe() {
+		return tb;
+	}
+
+	@Override
+	public void evaluate(long t, double[] dst, int off) {
+		initialState(dst, off);
+		propagate(dst, off, GpsTimeNs.secondsBetween(tb, t));
+		clock(t, dst, off);
+	}
+
+	/**
+	 * Writes X..VZ at tb to dst[off..off+5]
+	 */
+	void initialState(double[] dst, int off) {
+		dst[off + X] = x;
+		dst[off + Y] = y;
+		dst[off + Z] = z;
+		dst[off + VX] = vx;
+		dst[off + VY] = vy;
+		dst[off + VZ] = vz;
+	}
+
+	/**
+	 * Writes clock bias and drift at t
+	 */
+	void clock(long t, double[] dst, int off) {
+		dst[off + CLOCK_BIAS] = -tauN + gammaN * GpsTimeNs.secondsBetween(tb, t);
+		dst[off + CLOCK_DRIFT] = gammaN;
+	}
+
+	/**
+	 * Integrates state X..VZ at state[off] by dt seconds in steps of at most STEP_S
+	 */
+	void propagate(double[] state, int off, double dt) {
+		double rest = dt;
+		while (rest != 0) {
+			double h = Math.abs(rest) > STEP_S ? Math.copySign(STEP_S, rest) : rest;
+			rk4(state, off, h);
+			rest -= h;
+		}
+	}
+
+	/**
+	 * One Runge-Kutta step of state s[off..off+5]; stages are kept in locals, nothing is allocated
+	 */
+	private void rk4(double[] s, int off, double h) {
+		double x0 = s[off + X], y0 = s[off + Y], z0 = s[off + Z];
+		double vx0 = s[off + VX], vy0 = s[off + VY], vz0 = s[off + VZ];
+		double x = x0, y = y0, z = z0, vx = vx0, vy = vy0, vz = vz0;
+		double sx = 0, sy = 0, sz = 0, svx = 0, svy = 0, svz = 0;
+		for (int stage = 0; stage < 4; stage++) {
+			double r2 = x * x + y * y + z * z;
+			double r3 = r2 * Math.sqrt(r2);
+			double a = J2_TERM / (r2 * r3);
+			double b = 5 * z * z / r2;
+			double c = -GnssConstants.MU / r3 - a * (1 - b);
+			double kx = vx, ky = vy, kz = vz;
+			double kvx = (c + OMEGA2) * x + 2 * GnssConstants.OMEGA_EARTH * vy + ax;
+			double kvy = (c + OMEGA2) * y - 2 * GnssConstants.OMEGA_EARTH * vx + ay;
+			double kvz = (c - 2 * a) * z + az;
+			double w = (stage == 0 || stage == 3) ? 1 : 2;
+			sx += w * kx;
+			sy += w * ky;
+			sz += w * kz;
+			svx += w * kvx;
+			svy += w * kvy;
+			svz += w * kvz;
+			double hs = stage < 2 ? h / 2 : h;
+			x = x0 + hs * kx;
+			y = y0 + hs * ky;
+			z = z0 + hs * kz;
+			vx = vx0 + hs * kvx;
+			vy = vy0 + hs * kvy;
+			vz = vz0 + hs * kvz;
+		}
+		s[off + X] = x0 + h / 6 * sx;
+		s[off + Y] = y0 + h / 6 * sy;
+		s[off + Z] = z0 + h / 6 * sz;
+		s[off + VX] = vx0 + h / 6 * svx;
+		s[off + VY] = vy0 + h / 6 * svy;
+		s[off + VZ] = vz0 + h / 6 * svz;
+	}
+
+	@Override
+	public String toString() {
+		return "GlonassEphemeris{" + satId + " k=" + channel + " tb=" + GpsTimeNs.toString(tb) + "}";
+	}
+}
@@ -0,0 +1,55 @@
+package aero.geosystems.gnss;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * Evaluates {@link GlonassEphemeris} for a stream of epochs, keeping the last integrated state of each
+ * satellite. Next epoch integrates from that state when it is closer than tb, so consecutive 1 Hz epochs
+ * cost one short Runge-Kutta step instead of up to 15 one-minute steps.
+ * <p/>
+ * Results differ from {@link GlonassEphemeris#evaluate} by integration error only (well under a millimeter
+ * for 15 minutes). Not thread-safe; use one per thread.
+ */
+public final class GlonassPropagator {
+	private final GlonassEphemeris[] ephs = new GlonassEphemeris[SatSystem.totalNumIds];
+	private final long[] times = new long[SatSystem.totalNumIds];
+	/**
+	 * X..VZ of each satellite, by global satellite index * 6
+	 */
+	private final double[] states = new double[6 * SatSystem.totalNumIds];
+
+	/**
+	 * Same as eph.evaluate(t, dst, off)
+	 */
+	public void evaluate(@NotNull GlonassEphemeris eph, long t, double[] dst, int off) {
+		int sat = SatSystem.globalIndex(eph.satId);
+		int s = 6 * sat;
+		if (ephs[sat] != eph || Math.abs(t - times[sat]) >= Math.abs(t - eph.tb)) {
+			ephs[sat] = eph;
+			times[sat] = eph.tb;
+			eph.initialState(states, s);
+		}
+		eph.propagate(states, s, GpsTimeNs.secondsBetween(times[sat], t));
+		times[sat] = t;
+		System.arraycopy(states, s, dst, off, 6);
+		eph.clock(t, dst, off);
+	}
+
+	/**
+	 * Evaluates ephs[ephOff+k] at t for k in 0..count-1, output goes to dst[dstOff+k*STRIDE]
+	 */
+	public void evaluate(@NotNull GlonassEphemeris[] ephs, int ephOff, long t, double[] dst, int dstOff, int count) {
+		for (int k = 0; k < count; k++) {
+			evaluate(ephs[ephOff + k], t, dst, dstOff + k * Ephemeris.STRIDE);
+		}
+	}
+
+	/**
+	 * Forgets all integrated states
+	 */
+	public void reset() {
+		Arrays.fill(ephs, null);
+	}
+}
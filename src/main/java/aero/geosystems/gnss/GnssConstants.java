@@ -159,6 +159,7 @@ public class GnssConstants {
 	 * @param fidx Relative frequency index (-7..+7)
 	 */
 	public static double gloWaveL1(int fidx) {
+		if (fidx >= -7 && fidx <= 7) return GLO_WAVE_L1[fidx + 7];
 		return C / gloFreqL1(fidx);
 	}
 
@@ -168,9 +169,23 @@ public class GnssConstants {
 	 * @param fidx Relative frequency index (-7..+7)
 	 */
 	public static double gloWaveL2(int fidx) {
+		if (fidx >= -7 && fidx <= 7) return GLO_WAVE_L2[fidx + 7];
 		return C / gloFreqL2(fidx);
 	}
 
+	/**
+	 * gloWaveL1/gloWaveL2 of -7..+7
+	 */
+	private static final double[] GLO_WAVE_L1 = new double[15];
+	private static final double[] GLO_WAVE_L2 = new double[15];
+
+	static {
+		for (int fidx = -7; fidx <= 7; fidx++) {
+			GLO_WAVE_L1[fidx + 7] = C / gloFreqL1(fidx);
+			GLO_WAVE_L2[fidx + 7] = C / gloFreqL2(fidx);
+		}
+	}
+
 	/**
 	 * GPS L1 wavelength [m]
 	 */
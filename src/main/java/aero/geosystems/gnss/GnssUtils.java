@@ -2,7 +2,11 @@ package aero.geosystems.gnss;
 
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Arrays;
+import java.nio.BufferOverflowException;
+import java.nio.LongBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * GPS (time mostly) utility class
@@ -46,7 +50,8 @@ public class GnssUtils {
 	public static final long GPS_GLO_DIFF = 3L * 60L * 60L * 1000L - 1 * MS_IN_DAY;
 
 	/**
-	 * Known leap seconds
+	 * Built-in known leap seconds, default contents of {@link #getLeapSecondTable()}.
+	 * Conversions do not read this array; changing it has no effect
 	 */
 	public static final long[] GPST_LEAP_EPOCHS = {
 			46828800000L,  // 30.06.1981 23:59:60
@@ -69,6 +74,26 @@ public class GnssUtils {
 			1167264017000L,// 31.12.2016 23:59:60
 	};
 
+	public static final LeapSecondTable BUILTIN_LEAP_SECONDS = new LeapSecondTable(GPST_LEAP_EPOCHS);
+
+	private static volatile LeapSecondTable leapSecondTable = BUILTIN_LEAP_SECONDS;
+
+	/**
+	 * Leap second table used by all conversions
+	 */
+	@NotNull
+	public static LeapSecondTable getLeapSecondTable() {
+		return leapSecondTable;
+	}
+
+	/**
+	 * Replaces leap second table used by all conversions.
+	 * Conversions running concurrently see either old or new table, never a mix
+	 */
+	public static void setLeapSecondTable(@NotNull LeapSecondTable table) {
+		leapSecondTable = table;
+	}
+
 	/**
 	 * Number of leap seconds at current moment
 	 */
@@ -92,24 +117,14 @@ public class GnssUtils {
 	 * Number of leap seconds at specific gpstime
 	 */
 	public static int leapSeconds(long gps_time_ms) {
-		for (int i = GPST_LEAP_EPOCHS.length - 1; i >= 0; i--) {
-			if (gps_time_ms >= GPST_LEAP_EPOCHS[i]) {
-				return i + 1;
-			}
-		}
-		return 0;
+		return leapSecondTable.leapSeconds(gps_time_ms);
 	}
 
 	/**
 	 * Number of leap seconds at specific "gpstime with missing leap seconds"
 	 */
 	public static int leapSecondsU(long gps_time_ms) {
-		for (int i = GPST_LEAP_EPOCHS.length - 1; i >= 0; i--) {
-			if (gps_time_ms >= GPST_LEAP_EPOCHS[i] - i * 1000) {
-				return i + 1;
-			}
-		}
-		return 0;
+		return leapSecondTable.leapSecondsU(gps_time_ms);
 	}
 
 	/**
@@ -165,18 +180,82 @@ public class GnssUtils {
 	}
 
 	public static long[] separateMsSecMinHourDayWeek(long time) {
+		long[] rslt = new long[6];
+		separateMsSecMinHourDayWeek(time, rslt, 0);
+		return rslt;
+	}
+
+	/**
+	 * Same as {@link #separateMsSecMinHourDayWeek(long)}, written to {@code dst[off..off+5]}
+	 */
+	public static void separateMsSecMinHourDayWeek(long time, @NotNull long[] dst, int off) {
 		long ms = time;
 		long s = ms / 1000;
 		long min = s / 60;
 		long hr = min / 60;
 		long day = hr / 24;
 		long week = day / 7;
-		ms %= 1000;
-		s %= 60;
-		min %= 60;
-		hr %= 24;
-		day %= 7;
-		return new long[]{ms, s, min, hr, day, week};
+		dst[off] = ms % 1000;
+		dst[off + 1] = s % 60;
+		dst[off + 2] = min % 60;
+		dst[off + 3] = hr % 24;
+		dst[off + 4] = day % 7;
+		dst[off + 5] = week;
+	}
+
+	/*
+	 * Packed week/day/hour/min/sec/ms: week in bits 30..63, day of week in bits 27..29, hour in 22..26,
+	 * minute in 16..21, second in 10..15, ms in 0..9.
+	 * Packed values compare the same way as times.
+	 */
+
+	private static final int PACKED_SEC_SHIFT = 10;
+	private static final int PACKED_MIN_SHIFT = 16;
+	private static final int PACKED_HOUR_SHIFT = 22;
+	private static final int PACKED_DAY_SHIFT = 27;
+	private static final int PACKED_WEEK_SHIFT = 30;
+
+	/**
+	 * Same as {@link #separateMsSecMinHourDayWeek(long)}, packed into one long
+	 *
+	 * @param time Non-negative time, e.g. gpstime
+	 */
+	public static long packMsSecMinHourDayWeek(long time) {
+		if (time < 0) throw new IllegalArgumentException("Negative time " + time);
+		long s = time / 1000;
+		long min = s / 60;
+		long hr = min / 60;
+		long day = hr / 24;
+		return (day / 7) << PACKED_WEEK_SHIFT
+				| (day % 7) << PACKED_DAY_SHIFT
+				| (hr % 24) << PACKED_HOUR_SHIFT
+				| (min % 60) << PACKED_MIN_SHIFT
+				| (s % 60) << PACKED_SEC_SHIFT
+				| time % 1000;
+	}
+
+	public static int packedMs(long packed) {
+		return (int) (packed & 0x3ff);
+	}
+
+	public static int packedSec(long packed) {
+		return (int) (packed >>> PACKED_SEC_SHIFT & 0x3f);
+	}
+
+	public static int packedMin(long packed) {
+		return (int) (packed >>> PACKED_MIN_SHIFT & 0x3f);
+	}
+
+	public static int packedHour(long packed) {
+		return (int) (packed >>> PACKED_HOUR_SHIFT & 0x1f);
+	}
+
+	public static int packedDay(long packed) {
+		return (int) (packed >>> PACKED_DAY_SHIFT & 0x7);
+	}
+
+	public static long packedWeek(long packed) {
+		return packed >>> PACKED_WEEK_SHIFT;
 	}
 
 	/**
@@ -258,11 +337,22 @@ public class GnssUtils {
 	 */
 	@NotNull
 	public static double[] deg2dms(double deg) {
+		double[] rslt = new double[3];
+		deg2dms(deg, rslt, 0);
+		return rslt;
+	}
+
+	/**
+	 * Same as {@link #deg2dms(double)}, written to {@code dst[off..off+2]}
+	 */
+	public static void deg2dms(double deg, @NotNull double[] dst, int off) {
 		int d = (int) deg;
 		deg = (deg - d) * 60;
 		int m = (int) deg;
 		deg = (deg - m) * 60;
-		return new double[]{d, m, deg};
+		dst[off] = d;
+		dst[off + 1] = m;
+		dst[off + 2] = deg;
 	}
 
 	/**
@@ -335,30 +425,78 @@ public class GnssUtils {
 	 * |  1   2  3   4   5   6  7   8
 	 * |  9  10 11  12  13  14 15  16
 	 * | 17  18 19  20  21  22 23  24
+	 *
+	 * @deprecated Initial contents of {@link #getGloChannelTable()}; lookups do not read this array, changing it
+	 * has no effect. Use {@link #updateGloChannel} or {@link #setGloChannelTable}
 	 */
+	@Deprecated
 	public static Integer[] gloFreqBands = {
 			1, -4, 5, 6, 1, -4, 5, 6,
 			-2, -7, 0, -1, -2, -7, 0, -1,
 			4, -3, 3, 2, 4, -3, 3, 2,
 			null, -5, null, null, null};
 
+	/**
+	 * {@link #gloFreqBands} as of 10.01.2012
+	 */
+	public static final GloChannelTable GLO_CHANNELS_2012 = new GloChannelTable(new int[]{
+			1, -4, 5, 6, 1, -4, 5, 6,
+			-2, -7, 0, -1, -2, -7, 0, -1,
+			4, -3, 3, 2, 4, -3, 3, 2,
+			GloChannelTable.UNKNOWN, -5});
+
+	private static final AtomicReference<GloChannelTable> gloChannelTable =
+			new AtomicReference<GloChannelTable>(GLO_CHANNELS_2012);
+
+	/**
+	 * GLONASS frequency channels used by {@link #gloChannel}, {@link #gloFreqBand}, {@link #gloSatByFreq}
+	 */
+	@NotNull
+	public static GloChannelTable getGloChannelTable() {
+		return gloChannelTable.get();
+	}
+
+	public static void setGloChannelTable(@NotNull GloChannelTable table) {
+		gloChannelTable.set(table);
+	}
+
+	/**
+	 * Sets channel of one slot, e.g. from decoded almanac or ephemeris. Safe to call from several threads;
+	 * readers see either old or new table.
+	 *
+	 * @param channel Frequency channel, or {@link GloChannelTable#UNKNOWN} to remove
+	 * @return true if table was changed
+	 * @throws IllegalArgumentException if slot or channel is out of range
+	 */
+	public static boolean updateGloChannel(int gloSat, int channel) {
+		while (true) {
+			GloChannelTable table = gloChannelTable.get();
+			GloChannelTable updated = table.with(gloSat, channel);
+			if (updated == table) return false;
+			if (gloChannelTable.compareAndSet(table, updated)) return true;
+		}
+	}
+
+	/**
+	 * @param gloSat GLONASS slot number
+	 * @return GLONASS frequency channel, or {@link GloChannelTable#UNKNOWN}
+	 */
+	public static int gloChannel(int gloSat) {
+		return gloChannelTable.get().channel(gloSat);
+	}
+
 	/**
 	 * @param gloSat GLONASS satellite number 1-24
 	 * @return GLONASS frequency number
 	 */
 	public static Integer gloFreqBand(int gloSat) {
-		try {
-			return gloFreqBands[gloSat - 1];
-		} catch (ArrayIndexOutOfBoundsException ex) {
-			return null;
-		}
+		int channel = gloChannel(gloSat);
+		return channel == GloChannelTable.UNKNOWN ? null : channel;
 	}
 
 	public static Integer gloSatByFreq(int gloFreq) {
-		for (int i = 0; i < gloFreqBands.length; i++) {
-			if (gloFreqBands[i] != null && gloFreqBands[i] == gloFreq) return i + 1;
-		}
-		return null;
+		int slot = gloChannelTable.get().slot(gloFreq);
+		return slot == 0 ? null : slot;
 	}
 
 	public static Datetime gps2date(long gt) {
@@ -382,6 +520,238 @@ public class GnssUtils {
 	}
 
 	public static boolean isLeapSecond(long gpsTime) {
-		return Arrays.binarySearch(GPST_LEAP_EPOCHS, gpsTime) >= 0;
+		return leapSecondTable.isLeapSecond(gpsTime);
+	}
+
+	/*
+	 * Bulk conversions.
+	 *
+	 * Source and destination ranges may be the same array at the same offset, but must not overlap otherwise.
+	 * Whole batch is converted with one leap second table snapshot; leap interval is resolved once per run of
+	 * source times falling into the same interval, so sorted input costs one comparison pair per element.
+	 */
+
+	private static final int GPS2UNIX = 0;
+	private static final int UNIX2GPS = 1;
+	private static final int GPS2GLOMS = 2;
+	private static final int GPS2BDT = 3;
+	/**
+	 * Minimal length of a range converted by one fork-join task
+	 */
+	private static final int PARALLEL_THRESHOLD = 1 << 16;
+	/**
+	 * Length of intermediate array for direct buffers
+	 */
+	private static final int BUFFER_CHUNK = 4096;
+
+	/**
+	 * GPS time --> UNIX time, for {@code length} elements
+	 */
+	public static void gps2unix(@NotNull long[] src, int srcPos, @NotNull long[] dst, int dstPos, int length) {
+		convert(GPS2UNIX, src, srcPos, dst, dstPos, length);
+	}
+
+	/**
+	 * UNIX time --> GPS time, for {@code length} elements
+	 */
+	public static void unix2gps(@NotNull long[] src, int srcPos, @NotNull long[] dst, int dstPos, int length) {
+		convert(UNIX2GPS, src, srcPos, dst, dstPos, length);
+	}
+
+	/**
+	 * GPS time --> GLONASS ms of day, for {@code length} elements
+	 */
+	public static void gps2gloms(@NotNull long[] src, int srcPos, @NotNull long[] dst, int dstPos, int length) {
+		convert(GPS2GLOMS, src, srcPos, dst, dstPos, length);
+	}
+
+	/**
+	 * GPS time --> BDS time, for {@code length} elements
+	 */
+	public static void gps2bdt(@NotNull long[] src, int srcPos, @NotNull long[] dst, int dstPos, int length) {
+		convert(GPS2BDT, src, srcPos, dst, dstPos, length);
+	}
+
+	/**
+	 * GPS time --> UNIX time, for all remaining elements of {@code src}; positions of both buffers are advanced
+	 *
+	 * @throws BufferOverflowException if {@code dst} has less remaining elements than {@code src}
+	 */
+	public static void gps2unix(@NotNull LongBuffer src, @NotNull LongBuffer dst) {
+		convert(GPS2UNIX, src, dst);
+	}
+
+	/**
+	 * UNIX time --> GPS time, for all remaining elements of {@code src}; positions of both buffers are advanced
+	 *
+	 * @throws BufferOverflowException if {@code dst} has less remaining elements than {@code src}
+	 */
+	public static void unix2gps(@NotNull LongBuffer src, @NotNull LongBuffer dst) {
+		convert(UNIX2GPS, src, dst);
+	}
+
+	/**
+	 * GPS time --> GLONASS ms of day, for all remaining elements of {@code src}; positions of both buffers are advanced
+	 *
+	 * @throws BufferOverflowException if {@code dst} has less remaining elements than {@code src}
+	 */
+	public static void gps2gloms(@NotNull LongBuffer src, @NotNull LongBuffer dst) {
+		convert(GPS2GLOMS, src, dst);
+	}
+
+	/**
+	 * GPS time --> BDS time, for all remaining elements of {@code src}; positions of both buffers are advanced
+	 *
+	 * @throws BufferOverflowException if {@code dst} has less remaining elements than {@code src}
+	 */
+	public static void gps2bdt(@NotNull LongBuffer src, @NotNull LongBuffer dst) {
+		convert(GPS2BDT, src, dst);
+	}
+
+	/**
+	 * Same as {@link #gps2unix(long[], int, long[], int, int)}, split between common fork-join pool threads
+	 */
+	public static void parallelGps2unix(@NotNull long[] src, int srcPos, @NotNull long[] dst, int dstPos, int length) {
+		convertParallel(GPS2UNIX, src, srcPos, dst, dstPos, length);
+	}
+
+	/**
+	 * Same as {@link #unix2gps(long[], int, long[], int, int)}, split between common fork-join pool threads
+	 */
+	public static void parallelUnix2gps(@NotNull long[] src, int srcPos, @NotNull long[] dst, int dstPos, int length) {
+		convertParallel(UNIX2GPS, src, srcPos, dst, dstPos, length);
+	}
+
+	/**
+	 * Same as {@link #gps2gloms(long[], int, long[], int, int)}, split between common fork-join pool threads
+	 */
+	public static void parallelGps2gloms(@NotNull long[] src, int srcPos, @NotNull long[] dst, int dstPos, int length) {
+		convertParallel(GPS2GLOMS, src, srcPos, dst, dstPos, length);
+	}
+
+	/**
+	 * Same as {@link #gps2bdt(long[], int, long[], int, int)}, split between common fork-join pool threads
+	 */
+	public static void parallelGps2bdt(@NotNull long[] src, int srcPos, @NotNull long[] dst, int dstPos, int length) {
+		convertParallel(GPS2BDT, src, srcPos, dst, dstPos, length);
+	}
+
+	private static void checkRange(long[] array, int pos, int length) {
+		if (pos < 0 || length < 0 || pos > array.length - length) {
+			throw new ArrayIndexOutOfBoundsException("Range " + pos + "+" + length + " out of " + array.length);
+		}
+	}
+
+	private static void convert(int kind, long[] src, int srcPos, long[] dst, int dstPos, int length) {
+		checkRange(src, srcPos, length);
+		checkRange(dst, dstPos, length);
+		convert(kind, leapSecondTable, src, srcPos, dst, dstPos, length);
+	}
+
+	private static void convertParallel(int kind, long[] src, int srcPos, long[] dst, int dstPos, int length) {
+		checkRange(src, srcPos, length);
+		checkRange(dst, dstPos, length);
+		if (length <= PARALLEL_THRESHOLD) {
+			convert(kind, leapSecondTable, src, srcPos, dst, dstPos, length);
+		} else {
+			ForkJoinPool.commonPool().invoke(new ConversionTask(kind, leapSecondTable, src, srcPos, dst, dstPos, length));
+		}
+	}
+
+	private static void convert(int kind, LongBuffer src, LongBuffer dst) {
+		int length = src.remaining();
+		if (dst.remaining() < length) throw new BufferOverflowException();
+		LeapSecondTable table = leapSecondTable;
+		if (src.hasArray() && dst.hasArray() && !dst.isReadOnly()) {
+			convert(kind, table, src.array(), src.arrayOffset() + src.position(),
+					dst.array(), dst.arrayOffset() + dst.position(), length);
+			src.position(src.position() + length);
+			dst.position(dst.position() + length);
+			return;
+		}
+		long[] chunk = new long[Math.min(length, BUFFER_CHUNK)];
+		while (length > 0) {
+			int n = Math.min(length, chunk.length);
+			src.get(chunk, 0, n);
+			convert(kind, table, chunk, 0, chunk, 0, n);
+			dst.put(chunk, 0, n);
+			length -= n;
+		}
+	}
+
+	/**
+	 * Shifts interval bound, keeping infinite bounds infinite
+	 */
+	private static long shiftBound(long bound, long shift) {
+		return bound == Long.MIN_VALUE || bound == Long.MAX_VALUE ? bound : bound + shift;
+	}
+
+	private static void convert(int kind, LeapSecondTable table,
+	                            long[] src, int srcPos, long[] dst, int dstPos, int length) {
+		int i = srcPos;
+		int j = dstPos;
+		int end = srcPos + length;
+		if (kind == GPS2BDT) {
+			while (i < end) dst[j++] = gps2bdt(src[i++]);
+			return;
+		}
+		while (i < end) {
+			long t = src[i];
+			// [lo, hi) -- source times with the same number of leap seconds as t
+			long lo, hi, offset;
+			if (kind == UNIX2GPS) {
+				int k = table.leapSecondsU(t - GPS_UNIX_DIFF);
+				lo = shiftBound(table.boundU(k), GPS_UNIX_DIFF);
+				hi = shiftBound(table.boundU(k + 1), GPS_UNIX_DIFF);
+				offset = k * 1000L - GPS_UNIX_DIFF;
+			} else {
+				int k = table.leapSeconds(t);
+				lo = table.bound(k);
+				hi = table.bound(k + 1);
+				offset = kind == GPS2GLOMS ? MS_IN_DAY + GPS_GLO_DIFF - k * 1000L : GPS_UNIX_DIFF - k * 1000L;
+			}
+			if (kind == GPS2GLOMS) {
+				do {
+					dst[j++] = (t % MS_IN_WEEK + offset) % MS_IN_DAY;
+				} while (++i < end && (t = src[i]) >= lo && t < hi);
+			} else {
+				do {
+					dst[j++] = t + offset;
+				} while (++i < end && (t = src[i]) >= lo && t < hi);
+			}
+		}
+	}
+
+	private static class ConversionTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final int kind;
+		private final LeapSecondTable table;
+		private final long[] src;
+		private final int srcPos;
+		private final long[] dst;
+		private final int dstPos;
+		private final int length;
+
+		ConversionTask(int kind, LeapSecondTable table, long[] src, int srcPos, long[] dst, int dstPos, int length) {
+			this.kind = kind;
+			this.table = table;
+			this.src = src;
+			this.srcPos = srcPos;
+			this.dst = dst;
+			this.dstPos = dstPos;
+			this.length = length;
+		}
+
+		@Override
+		protected void compute() {
+			if (length <= PARALLEL_THRESHOLD) {
+				convert(kind, table, src, srcPos, dst, dstPos, length);
+				return;
+			}
+			int half = length >>> 1;
+			invokeAll(new ConversionTask(kind, table, src, srcPos, dst, dstPos, half),
+					new ConversionTask(kind, table, src, srcPos + half, dst, dstPos + half, length - half));
+		}
 	}
 }
@@ -0,0 +1,167 @@
+package aero.geosystems.gnss;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * GPS time with nanosecond resolution, as a plain {@code long}.
+ * <p/>
+ * Value is number of nanoseconds since 6 January 1980, with leap seconds (same scale as <b>gpstime</b> in
+ * {@link GnssUtils}, times 10<sup>6</sup>). Covers 1980 &plusmn; 292 years. Comparison and arithmetic on
+ * values are ordinary {@code long} operations; this class only holds conversions and accessors.
+ * <p/>
+ * Sub-millisecond part is always non-negative: {@code t == fromGpstime(toGpstime(t), subMsNs(t))}.
+ */
+public final class GpsTimeNs {
+	public static final long NS_IN_MS = 1_000_000L;
+	public static final long NS_IN_SECOND = 1000L * NS_IN_MS;
+	public static final long NS_IN_DAY = GnssUtils.MS_IN_DAY * NS_IN_MS;
+	public static final long NS_IN_WEEK = GnssUtils.MS_IN_WEEK * NS_IN_MS;
+
+	private GpsTimeNs() {
+	}
+
+	/**
+	 * gpstime (ms) --> GPS time ns
+	 */
+	@Contract(pure = true)
+	public static long fromGpstime(long gpstime) {
+		return gpstime * NS_IN_MS;
+	}
+
+	/**
+	 * gpstime (ms) + nanoseconds of millisecond --> GPS time ns
+	 */
+	@Contract(pure = true)
+	public static long fromGpstime(long gpstime, long subMsNs) {
+		return gpstime * NS_IN_MS + subMsNs;
+	}
+
+	/**
+	 * GPS week number + ns of week --> GPS time ns
+	 */
+	@Contract(pure = true)
+	public static long fromWeekTow(long week, long towNs) {
+		return week * NS_IN_WEEK + towNs;
+	}
+
+	/**
+	 * GPS week number + seconds of week --> GPS time ns, rounded to nearest ns
+	 */
+	@Contract(pure = true)
+	public static long fromWeekTowSeconds(long week, double towSeconds) {
+		long towMs = (long) Math.floor(towSeconds * 1000);
+		long subMsNs = Math.round((towSeconds * 1000 - towMs) * NS_IN_MS);
+		return fromGpstime(GnssUtils.constructGpsTime(week, towMs), subMsNs);
+	}
+
+	/**
+	 * UNIX time (ms) --> GPS time ns
+	 */
+	@Contract(pure = true)
+	public static long fromUnix(long unixMs) {
+		return fromGpstime(GnssUtils.unix2gps(unixMs));
+	}
+
+	/**
+	 * GPS time ns --> gpstime (ms), rounded down
+	 */
+	@Contract(pure = true)
+	public static long toGpstime(long t) {
+		return Math.floorDiv(t, NS_IN_MS);
+	}
+
+	/**
+	 * GPS time ns --> UNIX time (ms), rounded down
+	 */
+	@Contract(pure = true)
+	public static long toUnix(long t) {
+		return GnssUtils.gps2unix(toGpstime(t));
+	}
+
+	/**
+	 * Nanoseconds of millisecond, 0..999999
+	 */
+	@Contract(pure = true)
+	public static int subMsNs(long t) {
+		return (int) Math.floorMod(t, NS_IN_MS);
+	}
+
+	/**
+	 * GPS week number, as {@link GnssUtils#extractGpsWeek}, rounded down for times before GPS zero time
+	 */
+	@Contract(pure = true)
+	public static long week(long t) {
+		return Math.floorDiv(t, NS_IN_WEEK);
+	}
+
+	/**
+	 * GPS ms of week, as {@link GnssUtils#extractMs}; always non-negative
+	 */
+	@Contract(pure = true)
+	public static long towMs(long t) {
+		return towNs(t) / NS_IN_MS;
+	}
+
+	/**
+	 * GPS ns of week; always non-negative
+	 */
+	@Contract(pure = true)
+	public static long towNs(long t) {
+		return Math.floorMod(t, NS_IN_WEEK);
+	}
+
+	/**
+	 * GPS seconds of week
+	 */
+	@Contract(pure = true)
+	public static double towSeconds(long t) {
+		return towMs(t) / 1e3 + subMsNs(t) / 1e9;
+	}
+
+	/**
+	 * Day of GPS week, 0..6, Sunday is zero
+	 */
+	@Contract(pure = true)
+	public static int dayOfWeek(long t) {
+		return (int) (towMs(t) / GnssUtils.MS_IN_DAY);
+	}
+
+	/**
+	 * GPS ms of day
+	 */
+	@Contract(pure = true)
+	public static long msOfDay(long t) {
+		return towMs(t) % GnssUtils.MS_IN_DAY;
+	}
+
+	@Contract(pure = true)
+	public static long plusSeconds(long t, double seconds) {
+		return t + Math.round(seconds * NS_IN_SECOND);
+	}
+
+	/**
+	 * @return {@code to - from} in seconds; nanoseconds are kept for spans under 104 days
+	 */
+	@Contract(pure = true)
+	public static double secondsBetween(long from, long to) {
+		return (to - from) / 1e9;
+	}
+
+	@Contract(pure = true)
+	public static int compare(long t1, long t2) {
+		return Long.compare(t1, t2);
+	}
+
+	/**
+	 * @return "week:seconds of week", e.g. "2034:345600.000000001", "-1:604799.999999999"
+	 */
+	@NotNull
+	public static String toString(long t) {
+		long tow = towNs(t);
+		StringBuilder sb = new StringBuilder(24);
+		sb.append(week(t)).append(':').append(tow / NS_IN_SECOND).append('.');
+		String frac = Long.toString(tow % NS_IN_SECOND + NS_IN_SECOND);
+		return sb.append(frac, 1, frac.length()).toString();
+	}
+}
@@ -0,0 +1,270 @@
+package aero.geosystems.gnss;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * GPS, Galileo, BeiDou and QZSS broadcast (Keplerian) ephemeris, IS-GPS-200 20.3.3.4.3.
+ * <p/>
+ * Terms that do not depend on time (semi-major axis, corrected mean motion, sqrt(1-e<sup>2</sup>), ...) are
+ * computed once in constructor; evaluation does not allocate. BeiDou GEO satellites (C01..C05) are rotated from
+ * their inertial-like frame per BDS ICD 5.2.4.12. Clock bias includes relativistic correction, but not group
+ * delay (see {@link #tgd}).
+ */
+public final class KeplerEphemeris implements Ephemeris {
+	/**
+	 * Earth gravitational constant (Galileo, BeiDou) [m^3/s^2]
+	 */
+	public static final double MU_GAL = 3.986004418e14;
+	/**
+	 * Earth angular velocity (BeiDou) [rad/s]
+	 */
+	public static final double OMEGA_DOT_E_BDS = 7.292115e-5;
+	/**
+	 * BDT - GPST [s]
+	 */
+	public static final int BDT_GPST_DIFF_S = -14;
+
+	private static final double BDS_GEO_INCLINATION = Math.toRadians(-5);
+	private static final int MAX_KEPLER_ITERATIONS = 20;
+
+	/**
+	 * Broadcast parameters as decoded, angles in radians, times are GPS time ns
+	 * (BeiDou times are converted from BDT by the caller, see {@link #BDT_GPST_DIFF_S})
+	 */
+	public static class Elements {
+		public int satId;
+		public long toe;
+		public long toc;
+		public double sqrtA;
+		public double e;
+		public double i0;
+		public double omega0;
+		public double omega;
+		public double m0;
+		public double deltaN;
+		public double iDot;
+		public double omegaDot;
+		public double cuc;
+		public double cus;
+		public double crc;
+		public double crs;
+		public double cic;
+		public double cis;
+		public double af0;
+		public double af1;
+		public double af2;
+		public double tgd;
+	}
+
+	@NotNull
+	public final SatSystem system;
+	public final int satId;
+	public final long toe;
+	public final long toc;
+	public final double sqrtA;
+	public final double e;
+	public final double i0;
+	public final double omega0;
+	public final double omega;
+	public final double m0;
+	public final double deltaN;
+	public final double iDot;
+	public final double omegaDot;
+	public final double cuc;
+	public final double cus;
+	public final double crc;
+	public final double crs;
+	public final double cic;
+	public final double cis;
+	public final double af0;
+	public final double af1;
+	public final double af2;
+	/**
+	 * Group delay [s], not included in clock bias
+	 */
+	public final double tgd;
+
+	// derived terms
+	private final boolean bdsGeo;
+	private final double omegaE;
+	private final double a;
+	private final double n;
+	private final double sqrt1me2;
+	/**
+	 * Rate of longitude of ascending node in ECEF (inertial-like frame for BeiDou GEO)
+	 */
+	private final double omegaDotK;
+	/**
+	 * Longitude of ascending node at toe
+	 */
+	private final double omegaToe;
+	/**
+	 * Relativistic clock correction coefficient times e * sqrtA [s]
+	 */
+	private final double relativistic;
+
+	/**
+	 * @throws IllegalArgumentException if satellite is not of GPS, Galileo, BeiDou or QZSS
+	 */
+	public KeplerEphemeris(@NotNull Elements el) {
+		SatSystem system = SatSystem.byId(el.satId);
+		if (system != SatSystem.GPS && system != SatSystem.GALILEO && system != SatSystem.BDS && system != SatSystem.QZSS) {
+			throw new IllegalArgumentException("No Keplerian ephemeris for satellite " + el.satId);
+		}
+		this.system = system;
+		satId = el.satId;
+		toe = el.toe;
+		toc = el.toc;
+		sqrtA = el.sqrtA;
+		e = el.e;
+		i0 = el.i0;
+		omega0 = el.omega0;
+		omega = el.omega;
+		m0 = el.m0;
+		deltaN = el.deltaN;
+		iDot = el.iDot;
+		omegaDot = el.omegaDot;
+		cuc = el.cuc;
+		cus = el.cus;
+		crc = el.crc;
+		crs = el.crs;
+		cic = el.cic;
+		cis = el.cis;
+		af0 = el.af0;
+		af1 = el.af1;
+		af2 = el.af2;
+		tgd = el.tgd;
+
+		double mu = (system == SatSystem.GPS || system == SatSystem.QZSS) ? GnssConstants.MU_M : MU_GAL;
+		omegaE = system == SatSystem.BDS ? OMEGA_DOT_E_BDS : GnssConstants.OMEGA_DOT_E;
+		bdsGeo = system == SatSystem.BDS && system.idToRinexNumber(satId) <= 5;
+		// toe in seconds of week of the system's own time scale
+		double toeSow = GpsTimeNs.towSeconds(system == SatSystem.BDS
+				? toe + BDT_GPST_DIFF_S * GpsTimeNs.NS_IN_SECOND : toe);
+		a = sqrtA * sqrtA;
+		n = Math.sqrt(mu / (a * a * a)) + deltaN;
+		sqrt1me2 = Math.sqrt(1 - e * e);
+		omegaDotK = bdsGeo ? omegaDot : omegaDot - omegaE;
+		omegaToe = omega0 - omegaE * toeSow;
+		relativistic = -2 * Math.sqrt(mu) / (GnssConstants.C * GnssConstants.C) * e * sqrtA;
+	}
+
+	@Override
+	public int getSatId() {
+		return satId;
+	}
+
+	@Override
+	public long getToe() {
+		return toe;
+	}
+
+	/**
+	 * Eccentric anomaly at tk seconds from toe
+	 */
+	private double eccentricAnomaly(double tk) {
+		double m = m0 + n * tk;
+		double ek = m;
+		for (int i = 0; i < MAX_KEPLER_ITERATIONS; i++) {
+			double d = (ek - e * Math.sin(ek) - m) / (1 - e * Math.cos(ek));
+			ek -= d;
+			if (Math.abs(d) < 1e-14) break;
+		}
+		return ek;
+	}
+
+	@Override
+	public void evaluate(long t, double[] dst, int off) {
+		double tk = GpsTimeNs.secondsBetween(toe, t);
+		double ek = eccentricAnomaly(tk);
+		double sinE = Math.sin(ek), cosE = Math.cos(ek);
+		double oneMinusECosE = 1 - e * cosE;
+		double ekDot = n / oneMinusECosE;
+		double vk = Math.atan2(sqrt1me2 * sinE, cosE - e);
+		double vkDot = sqrt1me2 * ekDot / oneMinusECosE;
+		double phi = vk + omega;
+		double sin2phi = Math.sin(2 * phi), cos2phi = Math.cos(2 * phi);
+		double u = phi + cus * sin2phi + cuc * cos2phi;
+		double r = a * oneMinusECosE + crs * sin2phi + crc * cos2phi;
+		double i = i0 + iDot * tk + cis * sin2phi + cic * cos2phi;
+		double uDot = vkDot * (1 + 2 * (cus * cos2phi - cuc * sin2phi));
+		double rDot = a * e * sinE * ekDot + 2 * vkDot * (crs * cos2phi - crc * sin2phi);
+		double iDotK = iDot + 2 * vkDot * (cis * cos2phi - cic * sin2phi);
+
+		double sinU = Math.sin(u), cosU = Math.cos(u);
+		double xp = r * cosU, yp = r * sinU;
+		double xpDot = rDot * cosU - r * uDot * sinU;
+		double ypDot = rDot * sinU + r * uDot * cosU;
+
+		double omegaK = omegaToe + omegaDotK * tk;
+		double sinO = Math.sin(omegaK), cosO = Math.cos(omegaK);
+		double sinI = Math.sin(i), cosI = Math.cos(i);
+		double x = xp * cosO - yp * cosI * sinO;
+		double y = xp * sinO + yp * cosI * cosO;
+		double z = yp * sinI;
+		double vx = xpDot * cosO - ypDot * cosI * sinO + yp * sinI * sinO * iDotK - y * omegaDotK;
+		double vy = xpDot * sinO + ypDot * cosI * cosO - yp * sinI * cosO * iDotK + x * omegaDotK;
+		double vz = ypDot * sinI + yp * cosI * iDotK;
+
+		if (bdsGeo) {
+			// P = Rz(omegaE * tk) Rx(-5 deg) P_GK; V also gets derivative of Rz
+			double sinX = Math.sin(BDS_GEO_INCLINATION), cosX = Math.cos(BDS_GEO_INCLINATION);
+			double sinZ = Math.sin(omegaE * tk), cosZ = Math.cos(omegaE * tk);
+			double y1 = cosX * y + sinX * z;
+			double vy1 = cosX * vy + sinX * vz;
+			z = -sinX * y + cosX * z;
+			vz = -sinX * vy + cosX * vz;
+			double x2 = cosZ * x + sinZ * y1;
+			double y2 = -sinZ * x + cosZ * y1;
+			double vx2 = cosZ * vx + sinZ * vy1 + omegaE * y2;
+			vy = -sinZ * vx + cosZ * vy1 - omegaE * x2;
+			vx = vx2;
+			x = x2;
+			y = y2;
+		}
+		dst[off + X] = x;
+		dst[off + Y] = y;
+		dst[off + Z] = z;
+		dst[off + VX] = vx;
+		dst[off + VY] = vy;
+		dst[off + VZ] = vz;
+		double tc = GpsTimeNs.secondsBetween(toc, t);
+		dst[off + CLOCK_BIAS] = af0 + (af1 + af2 * tc) * tc + relativistic * sinE;
+		dst[off + CLOCK_DRIFT] = af1 + 2 * af2 * tc + relativistic * cosE * ekDot;
+	}
+
+	/**
+	 * Evaluates this ephemeris at count times, output of times[timeOff+k] goes to dst[dstOff+k*STRIDE]
+	 */
+	public void evaluate(@NotNull long[] times, int timeOff, @NotNull double[] dst, int dstOff, int count) {
+		for (int k = 0; k < count; k++) {
+			evaluate(times[timeOff + k], dst, dstOff + k * STRIDE);
+		}
+	}
+
+	/**
+	 * Evaluates count ephemerides at one time, output of ephs[ephOff+k] goes to dst[dstOff+k*STRIDE]
+	 */
+	public static void evaluate(@NotNull KeplerEphemeris[] ephs, int ephOff, long t,
+	                            @NotNull double[] dst, int dstOff, int count) {
+		for (int k = 0; k < count; k++) {
+			ephs[ephOff + k].evaluate(t, dst, dstOff + k * STRIDE);
+		}
+	}
+
+	/**
+	 * Evaluates ephs[off+k] at times[off+k] (e.g. transmission times of each satellite) for k in 0..count-1,
+	 * output goes to dst[dstOff+k*STRIDE]
+	 */
+	public static void evaluate(@NotNull KeplerEphemeris[] ephs, @NotNull long[] times, int off,
+	                            @NotNull double[] dst, int dstOff, int count) {
+		for (int k = 0; k < count; k++) {
+			ephs[off + k].evaluate(times[off + k], dst, dstOff + k * STRIDE);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "KeplerEphemeris{" + satId + " toe=" + GpsTimeNs.toString(toe) + "}";
+	}
+}
@@ -0,0 +1,239 @@
+package aero.geosystems.gnss;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.text.ParseException;
+import java.util.Arrays;
+
+/**
+ * Leap second lookup table.
+ * <p/>
+ * Both "gpstime with LS" and "gpstime without LS" (see {@link GnssUtils}) lookups are answered from one table
+ * of interval bounds. Last resolved interval is remembered for each kind of lookup, so a stream of nearby times
+ * costs two comparisons per call; a miss falls back to binary search.
+ * <p/>
+ * Table contents never change after construction; remembered intervals are plain int indices, so instance is
+ * safe to share between threads without synchronization.
+ * <p/>
+ * Table used by {@link GnssUtils} conversions is {@link GnssUtils#getLeapSecondTable()}; it can be replaced at
+ * runtime, e.g. from IERS {@code leap-seconds.list} with {@link LeapSecondsFile}.
+ */
+public final class LeapSecondTable {
+	/**
+	 * 1 Jan 1900 (NTP epoch) - 1 Jan 1970
+	 */
+	public static final long NTP_UNIX_DIFF_S = 2208988800L;
+	/**
+	 * TAI-UTC at GPS zero time
+	 */
+	public static final int GPS_TAI_UTC = 19;
+
+	/**
+	 * Leap epochs, gpstime with LS
+	 */
+	private final long[] epochs;
+	/**
+	 * Interval bounds, gpstime with LS: interval k (k leap seconds) is [bounds[k], bounds[k+1])
+	 */
+	private final long[] bounds;
+	/**
+	 * Interval bounds, gpstime without LS
+	 */
+	private final long[] boundsU;
+	/**
+	 * Table expiration, gpstime; Long.MAX_VALUE if unknown
+	 */
+	private final long expires;
+	private int last;
+	private int lastU;
+
+	/**
+	 * @param gpstimeLeapEpochs Leap epochs, gpstime with LS, ascending (like {@link GnssUtils#GPST_LEAP_EPOCHS})
+	 * @throws IllegalArgumentException if epochs are not strictly ascending
+	 */
+	public LeapSecondTable(@NotNull long[] gpstimeLeapEpochs) {
+		this(gpstimeLeapEpochs, Long.MAX_VALUE);
+	}
+
+	/**
+	 * @param gpstimeLeapEpochs Leap epochs, gpstime with LS, ascending (like {@link GnssUtils#GPST_LEAP_EPOCHS})
+	 * @param expires           Gpstime after which table may be missing leap seconds; Long.MAX_VALUE if unknown
+	 * @throws IllegalArgumentException if epochs are not strictly ascending
+	 */
+	public LeapSecondTable(@NotNull long[] gpstimeLeapEpochs, long expires) {
+		this.expires = expires;
+		int n = gpstimeLeapEpochs.length;
+		epochs = gpstimeLeapEpochs.clone();
+		bounds = new long[n + 2];
+		boundsU = new long[n + 2];
+		bounds[0] = boundsU[0] = Long.MIN_VALUE;
+		bounds[n + 1] = boundsU[n + 1] = Long.MAX_VALUE;
+		for (int i = 0; i < n; i++) {
+			if (i > 0 && epochs[i] - 1000 <= epochs[i - 1]) {
+				throw new IllegalArgumentException("Leap epochs are not ascending at " + i + ": " + epochs[i]);
+			}
+			bounds[i + 1] = epochs[i];
+			boundsU[i + 1] = epochs[i] - i * 1000L;
+		}
+		last = lastU = n;
+	}
+
+	/**
+	 * Number of known leap seconds
+	 */
+	@Contract(pure = true)
+	public int size() {
+		return epochs.length;
+	}
+
+	/**
+	 * @return Leap epoch, gpstime with LS
+	 */
+	@Contract(pure = true)
+	public long epoch(int i) {
+		return epochs[i];
+	}
+
+	/**
+	 * @return Copy of leap epochs, gpstime with LS
+	 */
+	@NotNull
+	public long[] epochs() {
+		return epochs.clone();
+	}
+
+	/**
+	 * @return Gpstime after which table may be missing leap seconds; Long.MAX_VALUE if unknown
+	 */
+	@Contract(pure = true)
+	public long expires() {
+		return expires;
+	}
+
+	/**
+	 * @return true if this table has all leap seconds of {@code other}, and maybe some more
+	 */
+	@Contract(pure = true)
+	public boolean extendsTable(@NotNull LeapSecondTable other) {
+		return epochs.length >= other.epochs.length
+				&& Arrays.equals(Arrays.copyOf(epochs, other.epochs.length), other.epochs);
+	}
+
+	/**
+	 * Number of leap seconds at specific gpstime
+	 */
+	public int leapSeconds(long gps_time_ms) {
+		int k = last;
+		if (gps_time_ms >= bounds[k] && gps_time_ms < bounds[k + 1]) return k;
+		return last = search(bounds, gps_time_ms);
+	}
+
+	/**
+	 * Number of leap seconds at specific "gpstime with missing leap seconds"
+	 */
+	public int leapSecondsU(long gps_time_ms) {
+		int k = lastU;
+		if (gps_time_ms >= boundsU[k] && gps_time_ms < boundsU[k + 1]) return k;
+		return lastU = search(boundsU, gps_time_ms);
+	}
+
+	/**
+	 * @return Start of interval with k leap seconds, gpstime with LS; Long.MIN_VALUE for k = 0
+	 */
+	long bound(int k) {
+		return bounds[k];
+	}
+
+	/**
+	 * @return Start of interval with k leap seconds, gpstime without LS; Long.MIN_VALUE for k = 0
+	 */
+	long boundU(int k) {
+		return boundsU[k];
+	}
+
+	/**
+	 * @return true if gpstime is exactly the inserted 23:59:60.000
+	 */
+	@Contract(pure = true)
+	public boolean isLeapSecond(long gps_time_ms) {
+		int k = search(bounds, gps_time_ms);
+		return k > 0 && bounds[k] == gps_time_ms;
+	}
+
+	/**
+	 * @return Interval index k, bounds[k] <= t < bounds[k+1]
+	 */
+	private static int search(long[] bounds, long t) {
+		int lo = 0;
+		int hi = bounds.length - 2;
+		while (lo < hi) {
+			int mid = (lo + hi + 1) >>> 1;
+			if (bounds[mid] <= t) lo = mid;
+			else hi = mid - 1;
+		}
+		return lo;
+	}
+
+	/**
+	 * Parses IERS/NIST {@code leap-seconds.list}.
+	 * <p/>
+	 * Data lines are "NTP seconds of 00:00:00 UTC after leap second, TAI-UTC"; "#@" line is expiration
+	 * in NTP seconds; other "#" lines are comments. Entries before GPS zero time are skipped.
+	 *
+	 * @throws ParseException if file is malformed or TAI-UTC does not grow by exactly one second per entry;
+	 *                        error offset is line number
+	 */
+	@NotNull
+	public static LeapSecondTable parseLeapSecondsList(@NotNull Reader reader) throws IOException, ParseException {
+		BufferedReader br = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+		long[] epochs = new long[32];
+		int n = 0;
+		long expiresNtp = -1;
+		int lineno = 0;
+		String line;
+		while ((line = br.readLine()) != null) {
+			lineno++;
+			line = line.trim();
+			if (line.isEmpty()) continue;
+			try {
+				if (line.startsWith("#@")) {
+					expiresNtp = Long.parseLong(line.substring(2).trim());
+					continue;
+				}
+				if (line.charAt(0) == '#') continue;
+				int comment = line.indexOf('#');
+				if (comment >= 0) line = line.substring(0, comment);
+				String[] parts = line.trim().split("\\s+");
+				if (parts.length != 2) throw new ParseException("Bad leap second entry at line " + lineno, lineno);
+				long ntp = Long.parseLong(parts[0]);
+				int taiUtc = Integer.parseInt(parts[1]);
+				if (taiUtc <= GPS_TAI_UTC) continue;
+				if (taiUtc - GPS_TAI_UTC != n + 1) {
+					throw new ParseException("Unexpected TAI-UTC " + taiUtc + " at line " + lineno, lineno);
+				}
+				if (n == epochs.length) epochs = Arrays.copyOf(epochs, n * 2);
+				// 23:59:60 preceding the entry time
+				epochs[n] = ntp2gps(ntp, n);
+				n++;
+			} catch (NumberFormatException e) {
+				throw new ParseException("Bad number at line " + lineno + ": " + e.getMessage(), lineno);
+			}
+		}
+		try {
+			return new LeapSecondTable(Arrays.copyOf(epochs, n), expiresNtp < 0 ? Long.MAX_VALUE : ntp2gps(expiresNtp, n));
+		} catch (IllegalArgumentException e) {
+			throw new ParseException(e.getMessage(), lineno);
+		}
+	}
+
+	/**
+	 * @param leapSeconds Leap seconds before the NTP time
+	 */
+	private static long ntp2gps(long ntpSeconds, int leapSeconds) {
+		return GnssUtils.unix2gps_leap((ntpSeconds - NTP_UNIX_DIFF_S) * 1000L) + leapSeconds * 1000L;
+	}
+}
@@ -0,0 +1,110 @@
+package aero.geosystems.gnss;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local IERS/NIST {@code leap-seconds.list} file as a source of {@link GnssUtils#getLeapSecondTable()}.
+ * <p/>
+ * File is re-read when its modification time or size changes; parsed table is installed with
+ * {@link GnssUtils#setLeapSecondTable} only if it keeps all leap seconds of the table in use, so a truncated
+ * or outdated file cannot remove known leap seconds. Until the first successful load the built-in table stays
+ * in use.
+ * <pre>
+ * LeapSecondsFile lsf = new LeapSecondsFile(new File("/usr/share/zoneinfo/leap-seconds.list"));
+ * lsf.watch(scheduler, 1, TimeUnit.HOURS);
+ * </pre>
+ */
+public class LeapSecondsFile {
+	@NotNull
+	private final File file;
+	private long lastModified = -1;
+	private long lastLength = -1;
+	@Nullable
+	private volatile Exception lastError;
+
+	public LeapSecondsFile(@NotNull File file) {
+		this.file = file;
+	}
+
+	@NotNull
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * @return Error of the last reload attempt, null if it succeeded
+	 */
+	@Nullable
+	public Exception getLastError() {
+		return lastError;
+	}
+
+	/**
+	 * Reads the file and installs its table
+	 *
+	 * @return true if table was installed, false if it has no new leap seconds
+	 * @throws ParseException if file is malformed or lacks leap seconds of the table in use
+	 */
+	public synchronized boolean reload() throws IOException, ParseException {
+		try {
+			long modified = file.lastModified();
+			long length = file.length();
+			LeapSecondTable table;
+			try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.US_ASCII)) {
+				table = LeapSecondTable.parseLeapSecondsList(reader);
+			}
+			lastModified = modified;
+			lastLength = length;
+			LeapSecondTable current = GnssUtils.getLeapSecondTable();
+			if (!table.extendsTable(current)) {
+				throw new ParseException(file + " does not have all of " + current.size() + " known leap seconds", 0);
+			}
+			lastError = null;
+			if (table.size() == current.size() && table.expires() <= current.expires()) return false;
+			GnssUtils.setLeapSecondTable(table);
+			return true;
+		} catch (IOException | ParseException e) {
+			lastError = e;
+			throw e;
+		}
+	}
+
+	/**
+	 * Same as {@link #reload()}, but only if file was modified since last reload
+	 */
+	public synchronized boolean reloadIfChanged() throws IOException, ParseException {
+		if (file.lastModified() == lastModified && file.length() == lastLength) return false;
+		return reload();
+	}
+
+	/**
+	 * Periodically calls {@link #reloadIfChanged()}; errors are available through {@link #getLastError()}
+	 *
+	 * @return Cancel it to stop watching
+	 */
+	@NotNull
+	public ScheduledFuture<?> watch(@NotNull ScheduledExecutorService executor, long period, @NotNull TimeUnit unit) {
+		return executor.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					reloadIfChanged();
+				} catch (IOException | ParseException ignored) {
+					// kept in lastError, old table stays in use
+				}
+			}
+		}, 0, period, unit);
+	}
+}
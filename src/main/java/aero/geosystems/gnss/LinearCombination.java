@@ -0,0 +1,360 @@
+package aero.geosystems.gnss;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Dual-frequency combinations of two signals of one satellite: ionosphere-free, geometry-free, wide-lane,
+ * narrow-lane and Melbourne-W&uuml;bbena.
+ * <p/>
+ * Carrier phases are in cycles, pseudoranges in meters; results are in meters unless noted. Coefficients are
+ * computed once per signal pair and GLONASS frequency channel, see {@link #of}. Bulk methods apply them to
+ * ranges of {@code double[]} columns (one array per signal, same index for same satellite) in branch-free loops;
+ * missing observations should be NaN and give NaN. Instance bulk methods need all elements of a range to be of
+ * the same frequency channel; static ones take a channel per element, e.g. GLONASS satellites of
+ * {@link EpochObservations} columns by global satellite index.
+ */
+public final class LinearCombination {
+	@NotNull
+	public final RawSignal signal1;
+	@NotNull
+	public final RawSignal signal2;
+	/**
+	 * GLONASS frequency channel, 0 if both signals are CDMA
+	 */
+	public final int channel;
+	public final double frequency1;
+	public final double frequency2;
+	public final double wavelength1;
+	public final double wavelength2;
+	/**
+	 * Ionosphere-free range = ifCoef1 * range1 + ifCoef2 * range2
+	 */
+	public final double ifCoef1;
+	public final double ifCoef2;
+	/**
+	 * c / (f1 - f2) [m]
+	 */
+	public final double wideLaneWavelength;
+	/**
+	 * c / (f1 + f2) [m]
+	 */
+	public final double narrowLaneWavelength;
+	// phase [cycles] -> ionosphere-free phase [m]
+	private final double ifPhase1;
+	private final double ifPhase2;
+	// f / (f1 + f2)
+	private final double nlCode1;
+	private final double nlCode2;
+
+	private static final int NCHANNELS = RawSignal.MAX_FREQUENCY_CHANNEL - RawSignal.MIN_FREQUENCY_CHANNEL + 1;
+	private static final int NSIGNALS = RawSignal.values().length;
+	/**
+	 * (signal1, signal2, channel) -> combination, filled on demand. Instances are immutable, so racing threads
+	 * may at worst compute the same one twice.
+	 */
+	private static final LinearCombination[] cache = new LinearCombination[NSIGNALS * NSIGNALS * NCHANNELS];
+
+	private LinearCombination(@NotNull RawSignal signal1, @NotNull RawSignal signal2, int channel) {
+		this.signal1 = signal1;
+		this.signal2 = signal2;
+		this.channel = channel;
+		frequency1 = signal1.frequency(channel);
+		frequency2 = signal2.frequency(channel);
+		wavelength1 = signal1.wavelength(channel);
+		wavelength2 = signal2.wavelength(channel);
+		double f1s = frequency1 * frequency1;
+		double f2s = frequency2 * frequency2;
+		ifCoef1 = f1s / (f1s - f2s);
+		ifCoef2 = -f2s / (f1s - f2s);
+		ifPhase1 = ifCoef1 * wavelength1;
+		ifPhase2 = ifCoef2 * wavelength2;
+		wideLaneWavelength = GnssConstants.C / (frequency1 - frequency2);
+		narrowLaneWavelength = GnssConstants.C / (frequency1 + frequency2);
+		nlCode1 = frequency1 / (frequency1 + frequency2);
+		nlCode2 = frequency2 / (frequency1 + frequency2);
+	}
+
+	/**
+	 * @param channel GLONASS frequency channel, ignored if both signals are CDMA
+	 * @throws IllegalArgumentException if signals have same frequency
+	 */
+	@NotNull
+	public static LinearCombination of(@NotNull RawSignal signal1, @NotNull RawSignal signal2, int channel) {
+		if (signal1.frequencyStep == 0 && signal2.frequencyStep == 0) channel = 0;
+		if (signal1.frequency(channel) == signal2.frequency(channel)) {
+			throw new IllegalArgumentException(signal1 + " and " + signal2 + " have same frequency");
+		}
+		if (channel < RawSignal.MIN_FREQUENCY_CHANNEL || channel > RawSignal.MAX_FREQUENCY_CHANNEL) {
+			return new LinearCombination(signal1, signal2, channel);
+		}
+		int i = (signal1.ordinal() * NSIGNALS + signal2.ordinal()) * NCHANNELS + channel - RawSignal.MIN_FREQUENCY_CHANNEL;
+		LinearCombination lc = cache[i];
+		if (lc == null) cache[i] = lc = new LinearCombination(signal1, signal2, channel);
+		return lc;
+	}
+
+	@NotNull
+	public static LinearCombination of(@NotNull RawSignal signal1, @NotNull RawSignal signal2) {
+		return of(signal1, signal2, 0);
+	}
+
+	/**
+	 * Ionosphere-free combination of pseudoranges or of phases in meters
+	 */
+	@Contract(pure = true)
+	public double ionosphereFree(double range1, double range2) {
+		return ifCoef1 * range1 + ifCoef2 * range2;
+	}
+
+	/**
+	 * Ionosphere-free combination of phases [cycles]
+	 */
+	@Contract(pure = true)
+	public double ionosphereFreePhase(double phase1, double phase2) {
+		return ifPhase1 * phase1 + ifPhase2 * phase2;
+	}
+
+	/**
+	 * Geometry-free combination of phases [cycles], L1 - L2 in meters
+	 */
+	@Contract(pure = true)
+	public double geometryFreePhase(double phase1, double phase2) {
+		return wavelength1 * phase1 - wavelength2 * phase2;
+	}
+
+	/**
+	 * Geometry-free combination of pseudoranges, P2 - P1
+	 */
+	@Contract(pure = true)
+	public double geometryFreeCode(double code1, double code2) {
+		return code2 - code1;
+	}
+
+	/**
+	 * Wide-lane combination of phases [cycles], (f1 L1 - f2 L2) / (f1 - f2) in meters
+	 */
+	@Contract(pure = true)
+	public double wideLanePhase(double phase1, double phase2) {
+		return wideLaneWavelength * (phase1 - phase2);
+	}
+
+	/**
+	 * Narrow-lane combination of pseudoranges, (f1 P1 + f2 P2) / (f1 + f2)
+	 */
+	@Contract(pure = true)
+	public double narrowLaneCode(double code1, double code2) {
+		return nlCode1 * code1 + nlCode2 * code2;
+	}
+
+	/**
+	 * Melbourne-W&uuml;bbena combination, wide-lane phase minus narrow-lane code
+	 *
+	 * @return Wide-lane ambiguity [wide-lane cycles]
+	 */
+	@Contract(pure = true)
+	public double melbourneWubbena(double phase1, double phase2, double code1, double code2) {
+		return phase1 - phase2 - (nlCode1 * code1 + nlCode2 * code2) / wideLaneWavelength;
+	}
+
+	/**
+	 * dst[i] = ionosphereFree(range1[i], range2[i]) for i in offset..offset+length-1
+	 */
+	public void ionosphereFree(@NotNull double[] range1, @NotNull double[] range2, @NotNull double[] dst, int offset, int length) {
+		apply(ifCoef1, range1, ifCoef2, range2, dst, offset, length);
+	}
+
+	/**
+	 * dst[i] = ionosphereFreePhase(phase1[i], phase2[i]) for i in offset..offset+length-1
+	 */
+	public void ionosphereFreePhase(@NotNull double[] phase1, @NotNull double[] phase2, @NotNull double[] dst, int offset, int length) {
+		apply(ifPhase1, phase1, ifPhase2, phase2, dst, offset, length);
+	}
+
+	/**
+	 * dst[i] = geometryFreePhase(phase1[i], phase2[i]) for i in offset..offset+length-1
+	 */
+	public void geometryFreePhase(@NotNull double[] phase1, @NotNull double[] phase2, @NotNull double[] dst, int offset, int length) {
+		apply(wavelength1, phase1, -wavelength2, phase2, dst, offset, length);
+	}
+
+	/**
+	 * dst[i] = geometryFreeCode(code1[i], code2[i]) for i in offset..offset+length-1
+	 */
+	public void geometryFreeCode(@NotNull double[] code1, @NotNull double[] code2, @NotNull double[] dst, int offset, int length) {
+		apply(-1, code1, 1, code2, dst, offset, length);
+	}
+
+	/**
+	 * dst[i] = wideLanePhase(phase1[i], phase2[i]) for i in offset..offset+length-1
+	 */
+	public void wideLanePhase(@NotNull double[] phase1, @NotNull double[] phase2, @NotNull double[] dst, int offset, int length) {
+		apply(wideLaneWavelength, phase1, -wideLaneWavelength, phase2, dst, offset, length);
+	}
+
+	/**
+	 * dst[i] = narrowLaneCode(code1[i], code2[i]) for i in offset..offset+length-1
+	 */
+	public void narrowLaneCode(@NotNull double[] code1, @NotNull double[] code2, @NotNull double[] dst, int offset, int length) {
+		apply(nlCode1, code1, nlCode2, code2, dst, offset, length);
+	}
+
+	/**
+	 * dst[i] = melbourneWubbena(phase1[i], phase2[i], code1[i], code2[i]) for i in offset..offset+length-1
+	 */
+	public void melbourneWubbena(@NotNull double[] phase1, @NotNull double[] phase2,
+	                             @NotNull double[] code1, @NotNull double[] code2,
+	                             @NotNull double[] dst, int offset, int length) {
+		double c1 = nlCode1 / wideLaneWavelength;
+		double c2 = nlCode2 / wideLaneWavelength;
+		for (int i = offset, end = offset + length; i < end; i++) {
+			dst[i] = phase1[i] - phase2[i] - (c1 * code1[i] + c2 * code2[i]);
+		}
+	}
+
+	/**
+	 * dst[i] = of(signal1, signal2, channels[i]).ionosphereFree(range1[i], range2[i]) for i in offset..offset+length-1
+	 *
+	 * @param channels Frequency channel of each element, MIN_FREQUENCY_CHANNEL..MAX_FREQUENCY_CHANNEL of
+	 *                 {@link RawSignal}; ignored if both signals are CDMA
+	 */
+	public static void ionosphereFree(@NotNull RawSignal signal1, @NotNull RawSignal signal2, @NotNull byte[] channels,
+	                                  @NotNull double[] range1, @NotNull double[] range2,
+	                                  @NotNull double[] dst, int offset, int length) {
+		if (isCdma(signal1, signal2)) {
+			of(signal1, signal2).ionosphereFree(range1, range2, dst, offset, length);
+			return;
+		}
+		int base = channelsBase(signal1, signal2);
+		for (int i = offset, end = offset + length; i < end; i++) {
+			LinearCombination lc = cache[base + channels[i]];
+			dst[i] = lc.ifCoef1 * range1[i] + lc.ifCoef2 * range2[i];
+		}
+	}
+
+	/**
+	 * dst[i] = of(signal1, signal2, channels[i]).ionosphereFreePhase(phase1[i], phase2[i])
+	 * for i in offset..offset+length-1
+	 *
+	 * @param channels see {@link #ionosphereFree(RawSignal, RawSignal, byte[], double[], double[], double[], int, int)}
+	 */
+	public static void ionosphereFreePhase(@NotNull RawSignal signal1, @NotNull RawSignal signal2, @NotNull byte[] channels,
+	                                       @NotNull double[] phase1, @NotNull double[] phase2,
+	                                       @NotNull double[] dst, int offset, int length) {
+		if (isCdma(signal1, signal2)) {
+			of(signal1, signal2).ionosphereFreePhase(phase1, phase2, dst, offset, length);
+			return;
+		}
+		int base = channelsBase(signal1, signal2);
+		for (int i = offset, end = offset + length; i < end; i++) {
+			LinearCombination lc = cache[base + channels[i]];
+			dst[i] = lc.ifPhase1 * phase1[i] + lc.ifPhase2 * phase2[i];
+		}
+	}
+
+	/**
+	 * dst[i] = of(signal1, signal2, channels[i]).geometryFreePhase(phase1[i], phase2[i])
+	 * for i in offset..offset+length-1
+	 *
+	 * @param channels see {@link #ionosphereFree(RawSignal, RawSignal, byte[], double[], double[], double[], int, int)}
+	 */
+	public static void geometryFreePhase(@NotNull RawSignal signal1, @NotNull RawSignal signal2, @NotNull byte[] channels,
+	                                     @NotNull double[] phase1, @NotNull double[] phase2,
+	                                     @NotNull double[] dst, int offset, int length) {
+		if (isCdma(signal1, signal2)) {
+			of(signal1, signal2).geometryFreePhase(phase1, phase2, dst, offset, length);
+			return;
+		}
+		int base = channelsBase(signal1, signal2);
+		for (int i = offset, end = offset + length; i < end; i++) {
+			LinearCombination lc = cache[base + channels[i]];
+			dst[i] = lc.wavelength1 * phase1[i] - lc.wavelength2 * phase2[i];
+		}
+	}
+
+	/**
+	 * dst[i] = of(signal1, signal2, channels[i]).wideLanePhase(phase1[i], phase2[i]) for i in offset..offset+length-1
+	 *
+	 * @param channels see {@link #ionosphereFree(RawSignal, RawSignal, byte[], double[], double[], double[], int, int)}
+	 */
+	public static void wideLanePhase(@NotNull RawSignal signal1, @NotNull RawSignal signal2, @NotNull byte[] channels,
+	                                 @NotNull double[] phase1, @NotNull double[] phase2,
+	                                 @NotNull double[] dst, int offset, int length) {
+		if (isCdma(signal1, signal2)) {
+			of(signal1, signal2).wideLanePhase(phase1, phase2, dst, offset, length);
+			return;
+		}
+		int base = channelsBase(signal1, signal2);
+		for (int i = offset, end = offset + length; i < end; i++) {
+			dst[i] = cache[base + channels[i]].wideLaneWavelength * (phase1[i] - phase2[i]);
+		}
+	}
+
+	/**
+	 * dst[i] = of(signal1, signal2, channels[i]).narrowLaneCode(code1[i], code2[i]) for i in offset..offset+length-1
+	 *
+	 * @param channels see {@link #ionosphereFree(RawSignal, RawSignal, byte[], double[], double[], double[], int, int)}
+	 */
+	public static void narrowLaneCode(@NotNull RawSignal signal1, @NotNull RawSignal signal2, @NotNull byte[] channels,
+	                                  @NotNull double[] code1, @NotNull double[] code2,
+	                                  @NotNull double[] dst, int offset, int length) {
+		if (isCdma(signal1, signal2)) {
+			of(signal1, signal2).narrowLaneCode(code1, code2, dst, offset, length);
+			return;
+		}
+		int base = channelsBase(signal1, signal2);
+		for (int i = offset, end = offset + length; i < end; i++) {
+			LinearCombination lc = cache[base + channels[i]];
+			dst[i] = lc.nlCode1 * code1[i] + lc.nlCode2 * code2[i];
+		}
+	}
+
+	/**
+	 * dst[i] = of(signal1, signal2, channels[i]).melbourneWubbena(phase1[i], phase2[i], code1[i], code2[i])
+	 * for i in offset..offset+length-1
+	 *
+	 * @param channels see {@link #ionosphereFree(RawSignal, RawSignal, byte[], double[], double[], double[], int, int)}
+	 */
+	public static void melbourneWubbena(@NotNull RawSignal signal1, @NotNull RawSignal signal2, @NotNull byte[] channels,
+	                                    @NotNull double[] phase1, @NotNull double[] phase2,
+	                                    @NotNull double[] code1, @NotNull double[] code2,
+	                                    @NotNull double[] dst, int offset, int length) {
+		if (isCdma(signal1, signal2)) {
+			of(signal1, signal2).melbourneWubbena(phase1, phase2, code1, code2, dst, offset, length);
+			return;
+		}
+		int base = channelsBase(signal1, signal2);
+		for (int i = offset, end = offset + length; i < end; i++) {
+			LinearCombination lc = cache[base + channels[i]];
+			dst[i] = phase1[i] - phase2[i] - (lc.nlCode1 * code1[i] + lc.nlCode2 * code2[i]) / lc.wideLaneWavelength;
+		}
+	}
+
+	private static boolean isCdma(RawSignal signal1, RawSignal signal2) {
+		return signal1.frequencyStep == 0 && signal2.frequencyStep == 0;
+	}
+
+	/**
+	 * Fills cache for all channels of signal pair
+	 *
+	 * @return Index of its channel 0 in cache
+	 */
+	private static int channelsBase(RawSignal signal1, RawSignal signal2) {
+		int base = (signal1.ordinal() * NSIGNALS + signal2.ordinal()) * NCHANNELS - RawSignal.MIN_FREQUENCY_CHANNEL;
+		for (int k = RawSignal.MIN_FREQUENCY_CHANNEL; k <= RawSignal.MAX_FREQUENCY_CHANNEL; k++) {
+			if (cache[base + k] == null) of(signal1, signal2, k);
+		}
+		return base;
+	}
+
+	private static void apply(double a1, double[] x1, double a2, double[] x2, double[] dst, int offset, int length) {
+		for (int i = offset, end = offset + length; i < end; i++) {
+			dst[i] = a1 * x1[i] + a2 * x2[i];
+		}
+	}
+
+	@Override
+	public String toString() {
+		return signal1 + "/" + signal2 + (channel != 0 ? " k=" + channel : "");
+	}
+}
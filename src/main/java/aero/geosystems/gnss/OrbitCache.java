@@ -0,0 +1,261 @@
+package aero.geosystems.gnss;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Satellite orbits and clocks as Chebyshev polynomials over fixed time windows, shared by any number of
+ * threads (e.g. all stations of a network).
+ * <p/>
+ * Window of a satellite is fitted on first query from the ephemeris that {@link EphemerisSource} gives for the
+ * window middle, evaluated at Chebyshev nodes; concurrent queries of the same window wait for one fit. If an
+ * executor is given, the next window is fitted in background when a window is first used. Each satellite keeps
+ * {@link #RING} windows, older ones are evicted by newer.
+ * <p/>
+ * Queries return {@link Ephemeris#STRIDE} values like {@link Ephemeris#evaluate}; velocity and clock drift are
+ * derivatives of the polynomials.
+ */
+public final class OrbitCache {
+	/**
+	 * Windows kept per satellite
+	 */
+	public static final int RING = 4;
+	public static final long DEFAULT_WINDOW = 15 * 60 * GpsTimeNs.NS_IN_SECOND;
+	public static final int DEFAULT_DEGREE = 12;
+	/**
+	 * Components fitted: X, Y, Z, clock bias
+	 */
+	private static final int NCOMP = 4;
+
+	@NotNull
+	private final EphemerisSource source;
+	@Nullable
+	private final Executor executor;
+	private final long window;
+	private final int degree;
+	private final AtomicReferenceArray<Slot> slots = new AtomicReferenceArray<Slot>(SatSystem.totalNumIds * RING);
+
+	/**
+	 * Window of a satellite; task result is NCOMP * (degree+1) coefficients, or null if source has no ephemeris
+	 */
+	private static final class Slot {
+		final long index;
+		final FutureTask<double[]> task;
+
+		Slot(long index, FutureTask<double[]> task) {
+			this.index = index;
+			this.task = task;
+		}
+	}
+
+	public OrbitCache(@NotNull EphemerisSource source) {
+		this(source, null, DEFAULT_WINDOW, DEFAULT_DEGREE);
+	}
+
+	/**
+	 * @param executor Runs fits of next windows, null to fit only on query
+	 * @param window   Window length [ns]
+	 * @param degree   Degree of polynomials
+	 */
+	public OrbitCache(@NotNull EphemerisSource source, @Nullable Executor executor, long window, int degree) {
+		if (window <= 0 || degree < 1) throw new IllegalArgumentException("window " + window + ", degree " + degree);
+		this.source = source;
+		this.executor = executor;
+		this.window = window;
+		this.degree = degree;
+	}
+
+	/**
+	 * Writes position, velocity and clock of satellite at t to dst[off..off+STRIDE-1]
+	 *
+	 * @param sat Global satellite index
+	 * @param t   GPS time ns
+	 * @return false if source has no ephemeris or no finite positions for window of t; clock is NaN if source
+	 * has no clock
+	 */
+	public boolean evaluate(int sat, long t, @NotNull double[] dst, int off) {
+		long index = Math.floorDiv(t, window);
+		double[] c = coefficients(sat, index);
+		if (c == null) return false;
+		// x in [-1, 1] over the window
+		double half = window / 2.0;
+		double x = (t - index * window - half) / half;
+		int n = degree + 1;
+		double t0 = 1, t1 = x, u0 = 0, u1 = 1;
+		double p0 = c[0] / 2, p1 = c[n] / 2, p2 = c[2 * n] / 2, p3 = c[3 * n] / 2;
+		double d0 = 0, d1 = 0, d2 = 0, d3 = 0;
+		for (int j = 1; j < n; j++) {
+			// T_j = t1, T_j' = j * U_{j-1} = j * u1
+			p0 += c[j] * t1;
+			p1 += c[n + j] * t1;
+			p2 += c[2 * n + j] * t1;
+			p3 += c[3 * n + j] * t1;
+			double du = j * u1;
+			d0 += c[j] * du;
+			d1 += c[n + j] * du;
+			d2 += c[2 * n + j] * du;
+			d3 += c[3 * n + j] * du;
+			double t2 = 2 * x * t1 - t0, u2 = 2 * x * u1 - u0;
+			t0 = t1;
+			t1 = t2;
+			u0 = u1;
+			u1 = u2;
+		}
+		double scale = GpsTimeNs.NS_IN_SECOND / half;
+		dst[off + Ephemeris.X] = p0;
+		dst[off + Ephemeris.Y] = p1;
+		dst[off + Ephemeris.Z] = p2;
+		dst[off + Ephemeris.VX] = d0 * scale;
+		dst[off + Ephemeris.VY] = d1 * scale;
+		dst[off + Ephemeris.VZ] = d2 * scale;
+		dst[off + Ephemeris.CLOCK_BIAS] = p3;
+		dst[off + Ephemeris.CLOCK_DRIFT] = d3 * scale;
+		return true;
+	}
+
+	/**
+	 * Satellite position and clock at transmission of signal received at tRx by receiver at (rx, ry, rz),
+	 * with position rotated to ECEF of reception time (Sagnac correction)
+	 *
+	 * @param tRx Reception time, GPS time ns
+	 * @return Signal transit time [s], NaN if source has no ephemeris
+	 */
+	public double evaluateAtTransmission(int sat, long tRx, double rx, double ry, double rz,
+	                                     @NotNull double[] dst, int off) {
+		double tau = 0.075;
+		for (int iter = 0; iter < 3; iter++) {
+			long tTx = tRx - Math.round(tau * GpsTimeNs.NS_IN_SECOND);
+			if (!evaluate(sat, tTx, dst, off)) return Double.NaN;
+			double dx = dst[off + Ephemeris.X] - rx, dy = dst[off + Ephemeris.Y] - ry, dz = dst[off + Ephemeris.Z] - rz;
+			tau = Math.sqrt(dx * dx + dy * dy + dz * dz) / GnssConstants.C;
+		}
+		double a = GnssConstants.OMEGA_DOT_E * tau;
+		double sinA = Math.sin(a), cosA = Math.cos(a);
+		double x = dst[off + Ephemeris.X], y = dst[off + Ephemeris.Y];
+		double vx = dst[off + Ephemeris.VX], vy = dst[off + Ephemeris.VY];
+		dst[off + Ephemeris.X] = cosA * x + sinA * y;
+		dst[off + Ephemeris.Y] = -sinA * x + cosA * y;
+		dst[off + Ephemeris.VX] = cosA * vx + sinA * vy;
+		dst[off + Ephemeris.VY] = -sinA * vx + cosA * vy;
+		return tau;
+	}
+
+	/**
+	 * Evicts all windows
+	 */
+	public void clear() {
+		for (int i = 0; i < slots.length(); i++) {
+			slots.set(i, null);
+		}
+	}
+
+	@Nullable
+	private double[] coefficients(int sat, long index) {
+		int i = sat * RING + (int) Math.floorMod(index, (long) RING);
+		Slot slot = slots.get(i);
+		if (slot == null || slot.index != index) {
+			slot = install(sat, index, i, slot);
+			if (executor != null) {
+				prefetch(sat, index + 1);
+			}
+		}
+		try {
+			double[] c = slot.task.get();
+			if (c == null) slots.compareAndSet(i, slot, null);
+			return c;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		} catch (ExecutionException e) {
+			slots.compareAndSet(i, slot, null);
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	/**
+	 * Installs slot of window over an older one unless another thread did, and fits it in this thread. If slot
+	 * holds a newer window, it is kept and the window is fitted without installing, so a lagging caller does not
+	 * evict windows used by others
+	 *
+	 * @return Slot of window
+	 */
+	@NotNull
+	private Slot install(final int sat, final long index, int i, @Nullable Slot old) {
+		Slot slot = new Slot(index, new FutureTask<double[]>(new Callable<double[]>() {
+			@Override
+			public double[] call() {
+				return fit(sat, index);
+			}
+		}));
+		while (old == null || old.index < index) {
+			if (slots.compareAndSet(i, old, slot)) break;
+			old = slots.get(i);
+		}
+		if (old != null && old.index == index) return old;
+		slot.task.run();
+		return slot;
+	}
+
+	private void prefetch(final int sat, final long index) {
+		final int i = sat * RING + (int) Math.floorMod(index, (long) RING);
+		Slot slot = slots.get(i);
+		if (slot != null && slot.index >= index) return;
+		try {
+			//noinspection ConstantConditions
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					Slot old = slots.get(i);
+					if (old == null || old.index < index) install(sat, index, i, old);
+				}
+			});
+		} catch (RejectedExecutionException ignored) {
+			// window will be fitted on query
+		}
+	}
+
+	/**
+	 * @return Chebyshev coefficients of X, Y, Z, clock bias, or null if source has no ephemeris or its position is
+	 * not finite at any node; NaN clock is kept (e.g. missing SP3 clock) and gives NaN clock coefficients
+	 */
+	@Nullable
+	private double[] fit(int sat, long index) {
+		long start = index * window;
+		long half = window / 2;
+		Ephemeris eph = source.get(sat, start + half);
+		if (eph == null) return null;
+		int n = degree + 1;
+		double[] values = new double[n * NCOMP];
+		double[] state = new double[Ephemeris.STRIDE];
+		for (int k = 0; k < n; k++) {
+			double x = Math.cos(Math.PI * (k + 0.5) / n);
+			eph.evaluate(start + half + Math.round(x * half), state, 0);
+			values[k] = state[Ephemeris.X];
+			values[n + k] = state[Ephemeris.Y];
+			values[2 * n + k] = state[Ephemeris.Z];
+			values[3 * n + k] = state[Ephemeris.CLOCK_BIAS];
+			for (int m = 0; m < 3; m++) {
+				if (!Double.isFinite(values[m * n + k])) return null;
+			}
+		}
+		double[] c = new double[n * NCOMP];
+		for (int j = 0; j < n; j++) {
+			for (int k = 0; k < n; k++) {
+				double w = 2.0 / n * Math.cos(Math.PI * j * (k + 0.5) / n);
+				for (int m = 0; m < NCOMP; m++) {
+					c[m * n + j] += w * values[m * n + k];
+				}
+			}
+		}
+		return c;
+	}
+}
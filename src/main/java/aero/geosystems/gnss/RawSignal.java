@@ -9,6 +9,10 @@ import org.jetbrains.annotations.Nullable;
  * User: aimozg
  * Date: 20.12.10
  * Time: 15:49
+ * <p/>
+ * Several signals share RINEX 3.02 system, band and attribute; {@link #byCode} resolves them to the first
+ * declared one, see {@link #canonical()}: GPS_L2_PY_W for GPS_L2_PY_CORRELATED, BDS_*_I for BDS_*_I_D2,
+ * SBAS_L1CA for OmniSTAR.
  */
 public enum RawSignal {
 	GPS_L1_CA(SatSystem.GPS, 1, 'C', GnssConstants.GPS_L1_FREQUENCY),
@@ -81,8 +85,83 @@ public enum RawSignal {
 	public final char attr;// observation attribute according to RINEX 3.02
 	public final double frequency;
 	public final double frequencyStep;
+	/**
+	 * Frequency, wavelength and 1/wavelength by frequency channel - MIN_FREQUENCY_CHANNEL
+	 */
+	@NotNull
+	private final double[] frequencies;
+	@NotNull
+	private final double[] wavelengths;
+	@NotNull
+	private final double[] inverseWavelengths;
+	/**
+	 * RINEX observation codes by observation type, index in RINEX_OBS_TYPES
+	 */
+	@NotNull
+	private final String[] rinexCodes;
+
+	/**
+	 * GLONASS frequency channels with precomputed frequencies and wavelengths, same range as
+	 * {@link GnssConstants#gloWaveL1(int)} and {@link GloChannelTable}
+	 */
+	public static final int MIN_FREQUENCY_CHANNEL = -7;
+	public static final int MAX_FREQUENCY_CHANNEL = 7;
 
 	private static final RawSignal[] values = values();
+	/**
+	 * Observation types of RINEX 3.02: pseudorange, carrier phase, doppler, signal strength
+	 */
+	private static final String RINEX_OBS_TYPES = "CLDS";
+	private static final int NBANDS = 10;
+	private static final int NATTRS = 26;
+	/**
+	 * (gnss.ordinal(), band, attr) -> canonical signal
+	 */
+	private static final RawSignal[] byCode = new RawSignal[SatSystem.count * NBANDS * NATTRS];
+
+	static {
+		for (RawSignal signal : values) {
+			int i = codeIndex(signal.gnss, signal.band, signal.attr);
+			if (byCode[i] == null) byCode[i] = signal;
+		}
+	}
+
+	private static int codeIndex(@NotNull SatSystem gnss, int band, char attr) {
+		if (band < 0 || band >= NBANDS || attr < 'A' || attr > 'Z') return -1;
+		return (gnss.ordinal() * NBANDS + band) * NATTRS + attr - 'A';
+	}
+
+	/**
+	 * @param band RINEX band number 1..9
+	 * @param attr RINEX attribute, e.g. 'C', 'W'
+	 * @return Canonical signal, or null if there is none
+	 */
+	@Nullable
+	@Contract(pure = true)
+	public static RawSignal byCode(@NotNull SatSystem gnss, int band, char attr) {
+		int i = codeIndex(gnss, band, attr);
+		return i < 0 ? null : byCode[i];
+	}
+
+	/**
+	 * @param code RINEX 3.02 observation code, e.g. "C1C", "L2W", at offset
+	 * @return Canonical signal, or null if there is none or observation type is unknown
+	 */
+	@Nullable
+	@Contract(pure = true)
+	public static RawSignal byRinexCode(@NotNull SatSystem gnss, @NotNull CharSequence code, int offset) {
+		if (offset < 0 || offset + 3 > code.length() || RINEX_OBS_TYPES.indexOf(code.charAt(offset)) < 0) return null;
+		return byCode(gnss, code.charAt(offset + 1) - '0', code.charAt(offset + 2));
+	}
+
+	/**
+	 * @see #byRinexCode(SatSystem, CharSequence, int)
+	 */
+	@Nullable
+	@Contract(pure = true)
+	public static RawSignal byRinexCode(@NotNull SatSystem gnss, @NotNull CharSequence code) {
+		return code.length() == 3 ? byRinexCode(gnss, code, 0) : null;
+	}
 
 	@NotNull
 	public static int[] bands() {
@@ -105,16 +184,75 @@ public enum RawSignal {
 		this.band = band;
 		this.attr = attr;
 		this.frequencyStep = frequencyStep;
+		int nchannels = MAX_FREQUENCY_CHANNEL - MIN_FREQUENCY_CHANNEL + 1;
+		this.frequencies = new double[nchannels];
+		this.wavelengths = new double[nchannels];
+		this.inverseWavelengths = new double[nchannels];
+		for (int i = 0; i < nchannels; i++) {
+			frequencies[i] = frequency + (i + MIN_FREQUENCY_CHANNEL) * frequencyStep;
+			wavelengths[i] = GnssConstants.C / frequencies[i];
+			inverseWavelengths[i] = frequencies[i] / GnssConstants.C;
+		}
+		this.rinexCodes = new String[RINEX_OBS_TYPES.length()];
+		for (int i = 0; i < rinexCodes.length; i++) {
+			rinexCodes[i] = (RINEX_OBS_TYPES.charAt(i) + "" + band + attr).intern();
+		}
+	}
+
+	/**
+	 * @return Signal with same system, band and attribute returned by {@link #byCode}
+	 */
+	@NotNull
+	@Contract(pure = true)
+	public RawSignal canonical() {
+		//noinspection ConstantConditions
+		return byCode(gnss, band, attr);
 	}
 
+	/**
+	 * @param obsType 'C' (pseudorange), 'L' (phase), 'D' (doppler) or 'S' (signal strength)
+	 * @return RINEX 3.02 observation code, e.g. "L2W"; same instance on every call
+	 * @throws IllegalArgumentException on unknown observation type
+	 */
+	@NotNull
+	@Contract(pure = true)
+	public String rinexCode(char obsType) {
+		int i = RINEX_OBS_TYPES.indexOf(obsType);
+		if (i < 0) throw new IllegalArgumentException("Unknown observation type '" + obsType + "'");
+		return rinexCodes[i];
+	}
+
+	/**
+	 * @param fqidx GLONASS frequency channel, ignored for CDMA signals
+	 */
 	@Contract(pure = true)
 	public double frequency(int fqidx) {
+		int i = fqidx - MIN_FREQUENCY_CHANNEL;
+		if (i >= 0 && i < frequencies.length) return frequencies[i];
 		return frequency+fqidx*frequencyStep;
 	}
+
+	/**
+	 * @param fqidx GLONASS frequency channel, ignored for CDMA signals
+	 * @return Carrier wavelength [m], phase [cycles] * wavelength = range [m]
+	 */
 	@Contract(pure = true)
 	public double wavelength(int fqidx) {
+		int i = fqidx - MIN_FREQUENCY_CHANNEL;
+		if (i >= 0 && i < wavelengths.length) return wavelengths[i];
 		return GnssConstants.C/frequency(fqidx);
 	}
+
+	/**
+	 * @param fqidx GLONASS frequency channel, ignored for CDMA signals
+	 * @return 1 / wavelength [1/m], range [m] * inverseWavelength = phase [cycles]
+	 */
+	@Contract(pure = true)
+	public double inverseWavelength(int fqidx) {
+		int i = fqidx - MIN_FREQUENCY_CHANNEL;
+		if (i >= 0 && i < inverseWavelengths.length) return inverseWavelengths[i];
+		return frequency(fqidx)/GnssConstants.C;
+	}
 	@Contract(pure = true)
 	public int nominalBand() {
 		return band;
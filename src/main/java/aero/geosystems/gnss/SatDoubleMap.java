@@ -0,0 +1,36 @@
+package aero.geosystems.gnss;
+
+/**
+ * Global satellite index ({@link SatSystem#globalIndex}) -> double, without boxing
+ *
+ * @see AbstractSatMap
+ */
+public final class SatDoubleMap extends AbstractSatMap {
+	private final double[] values = new double[SatSystem.totalNumIds];
+
+	/**
+	 * @return Value of satellite, or absent if there is none
+	 */
+	public double get(int index, double absent) {
+		return containsKey(index) ? values[index] : absent;
+	}
+
+	/**
+	 * @return Value of {@link #keyAt}(i)
+	 */
+	public double valueAt(int i) {
+		return values[keyAt(i)];
+	}
+
+	public void put(int index, double value) {
+		addKey(index);
+		values[index] = value;
+	}
+
+	/**
+	 * @return true if satellite was present
+	 */
+	public boolean remove(int index) {
+		return removeKey(index);
+	}
+}
@@ -0,0 +1,46 @@
+package aero.geosystems.gnss;
+
+/**
+ * Global satellite index ({@link SatSystem#globalIndex}) -> long, without boxing
+ *
+ * @see AbstractSatMap
+ */
+public final class SatLongMap extends AbstractSatMap {
+	private final long[] values = new long[SatSystem.totalNumIds];
+
+	/**
+	 * @return Value of satellite, or absent if there is none
+	 */
+	public long get(int index, long absent) {
+		return containsKey(index) ? values[index] : absent;
+	}
+
+	/**
+	 * @return Value of {@link #keyAt}(i)
+	 */
+	public long valueAt(int i) {
+		return values[keyAt(i)];
+	}
+
+	public void put(int index, long value) {
+		addKey(index);
+		values[index] = value;
+	}
+
+	/**
+	 * Adds delta to value of satellite, absent value counts as 0
+	 *
+	 * @return New value
+	 */
+	public long increment(int index, long delta) {
+		if (addKey(index)) values[index] = 0;
+		return values[index] += delta;
+	}
+
+	/**
+	 * @return true if satellite was present
+	 */
+	public boolean remove(int index) {
+		return removeKey(index);
+	}
+}
@@ -0,0 +1,57 @@
+package aero.geosystems.gnss;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Global satellite index ({@link SatSystem#globalIndex}) -> object
+ *
+ * @see AbstractSatMap
+ */
+public final class SatObjectMap<T> extends AbstractSatMap {
+	private final Object[] values = new Object[SatSystem.totalNumIds];
+
+	@Nullable
+	@SuppressWarnings("unchecked")
+	public T get(int index) {
+		return (T) values[index];
+	}
+
+	/**
+	 * @return Value of {@link #keyAt}(i)
+	 */
+	@NotNull
+	@SuppressWarnings("unchecked")
+	public T valueAt(int i) {
+		return (T) values[keyAt(i)];
+	}
+
+	/**
+	 * @return Previous value
+	 */
+	@Nullable
+	public T put(int index, @NotNull T value) {
+		T prev = get(index);
+		addKey(index);
+		values[index] = value;
+		return prev;
+	}
+
+	/**
+	 * @return Removed value
+	 */
+	@Nullable
+	public T remove(int index) {
+		T prev = get(index);
+		if (removeKey(index)) values[index] = null;
+		return prev;
+	}
+
+	@Override
+	public void clear() {
+		for (int i = 0; i < size(); i++) {
+			values[keyAt(i)] = null;
+		}
+		super.clear();
+	}
+}
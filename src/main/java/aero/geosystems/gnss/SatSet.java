@@ -0,0 +1,279 @@
+package aero.geosystems.gnss;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.text.ParseException;
+import java.util.Arrays;
+
+/**
+ * Mutable set of satellites, bitset over global satellite index ({@link SatSystem#globalIndex}).
+ * <p/>
+ * Set operations work on whole words and modify this set. Iteration in index order:
+ * <pre>
+ * for (int index = set.nextIndex(0); index &gt;= 0; index = set.nextIndex(index + 1)) {
+ * 	...
+ * }
+ * </pre>
+ */
+public final class SatSet {
+	private static final int WORDS = (SatSystem.totalNumIds + 63) >>> 6;
+	/**
+	 * SatSystem.ordinal() -> all satellites of the system
+	 */
+	private static final long[][] SYSTEM_MASKS = new long[SatSystem.count][WORDS];
+
+	static {
+		for (int index = 0; index < SatSystem.totalNumIds; index++) {
+			SYSTEM_MASKS[SatSystem.byGlobalIndex(index).ordinal()][index >>> 6] |= 1L << index;
+		}
+	}
+
+	private final long[] words = new long[WORDS];
+
+	public SatSet() {
+	}
+
+	public SatSet(@NotNull SatSet other) {
+		System.arraycopy(other.words, 0, words, 0, WORDS);
+	}
+
+	/**
+	 * @return New set of all satellites of system
+	 */
+	@NotNull
+	public static SatSet of(@NotNull SatSystem system) {
+		SatSet set = new SatSet();
+		System.arraycopy(SYSTEM_MASKS[system.ordinal()], 0, set.words, 0, WORDS);
+		return set;
+	}
+
+	/**
+	 * @return New set of all satellites of systems
+	 */
+	@NotNull
+	public static SatSet of(@NotNull Iterable<SatSystem> systems) {
+		SatSet set = new SatSet();
+		for (SatSystem system : systems) {
+			set.addAll(system);
+		}
+		return set;
+	}
+
+	/**
+	 * Parses list of RINEX 3.02 satellite codes separated by spaces or commas, e.g. "G01 G05 R12 E07"
+	 *
+	 * @throws ParseException on unknown system or satellite, errorOffset is index of the code in s
+	 */
+	@NotNull
+	public static SatSet parse(@NotNull CharSequence s) throws ParseException {
+		SatSet set = new SatSet();
+		int i = 0, n = s.length();
+		while (i < n) {
+			char c = s.charAt(i);
+			if (c == ' ' || c == ',' || c == '\t') {
+				i++;
+				continue;
+			}
+			int start = i;
+			SatSystem system = SatSystem.byCharCode(c);
+			if (system == null) throw new ParseException("Unknown satellite system '" + c + "'", start);
+			int number = 0;
+			while (++i < n && (c = s.charAt(i)) >= '0' && c <= '9' && number < 1000) {
+				number = number * 10 + (c - '0');
+			}
+			int id = (i > start + 1) ? system.rinexNumberToId(number) : -1;
+			if (id < 0 || (i < n && c != ' ' && c != ',' && c != '\t')) {
+				throw new ParseException("Invalid satellite " + s.subSequence(start, i), start);
+			}
+			set.add(SatSystem.globalIndex(id));
+		}
+		return set;
+	}
+
+	public boolean contains(int index) {
+		return (words[index >>> 6] & (1L << index)) != 0;
+	}
+
+	/**
+	 * @return false if id is not valid or not in set
+	 */
+	public boolean containsId(int id) {
+		int index = SatSystem.globalIndex(id);
+		return index >= 0 && contains(index);
+	}
+
+	@NotNull
+	public SatSet add(int index) {
+		words[index >>> 6] |= 1L << index;
+		return this;
+	}
+
+	/**
+	 * @throws IllegalArgumentException if id is not valid
+	 */
+	@NotNull
+	public SatSet addId(int id) {
+		int index = SatSystem.globalIndex(id);
+		if (index < 0) throw new IllegalArgumentException("Invalid satellite id " + id);
+		return add(index);
+	}
+
+	@NotNull
+	public SatSet remove(int index) {
+		words[index >>> 6] &= ~(1L << index);
+		return this;
+	}
+
+	@NotNull
+	public SatSet addAll(@NotNull SatSystem system) {
+		return or(SYSTEM_MASKS[system.ordinal()]);
+	}
+
+	/**
+	 * Keeps only satellites of system
+	 */
+	@NotNull
+	public SatSet retainAll(@NotNull SatSystem system) {
+		return and(SYSTEM_MASKS[system.ordinal()]);
+	}
+
+	@NotNull
+	public SatSet removeAll(@NotNull SatSystem system) {
+		return andNot(SYSTEM_MASKS[system.ordinal()]);
+	}
+
+	/**
+	 * Union
+	 */
+	@NotNull
+	public SatSet or(@NotNull SatSet other) {
+		return or(other.words);
+	}
+
+	/**
+	 * Intersection
+	 */
+	@NotNull
+	public SatSet and(@NotNull SatSet other) {
+		return and(other.words);
+	}
+
+	/**
+	 * Difference
+	 */
+	@NotNull
+	public SatSet andNot(@NotNull SatSet other) {
+		return andNot(other.words);
+	}
+
+	@NotNull
+	public SatSet clear() {
+		Arrays.fill(words, 0);
+		return this;
+	}
+
+	@Contract(pure = true)
+	public boolean isEmpty() {
+		for (long word : words) {
+			if (word != 0) return false;
+		}
+		return true;
+	}
+
+	@Contract(pure = true)
+	public boolean intersects(@NotNull SatSet other) {
+		for (int i = 0; i < WORDS; i++) {
+			if ((words[i] & other.words[i]) != 0) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @return Number of satellites
+	 */
+	@Contract(pure = true)
+	public int size() {
+		int n = 0;
+		for (long word : words) {
+			n += Long.bitCount(word);
+		}
+		return n;
+	}
+
+	/**
+	 * @return Number of satellites of system
+	 */
+	@Contract(pure = true)
+	public int size(@NotNull SatSystem system) {
+		long[] mask = SYSTEM_MASKS[system.ordinal()];
+		int n = 0;
+		for (int i = 0; i < WORDS; i++) {
+			n += Long.bitCount(words[i] & mask[i]);
+		}
+		return n;
+	}
+
+	/**
+	 * @return First index &gt;= from in set, or -1
+	 */
+	@Contract(pure = true)
+	public int nextIndex(int from) {
+		int w = from >>> 6;
+		if (w >= WORDS) return -1;
+		long word = words[w] & (-1L << from);
+		while (word == 0) {
+			if (++w == WORDS) return -1;
+			word = words[w];
+		}
+		return (w << 6) + Long.numberOfTrailingZeros(word);
+	}
+
+	private SatSet or(long[] other) {
+		for (int i = 0; i < WORDS; i++) {
+			words[i] |= other[i];
+		}
+		return this;
+	}
+
+	private SatSet and(long[] other) {
+		for (int i = 0; i < WORDS; i++) {
+			words[i] &= other[i];
+		}
+		return this;
+	}
+
+	private SatSet andNot(long[] other) {
+		for (int i = 0; i < WORDS; i++) {
+			words[i] &= ~other[i];
+		}
+		return this;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return this == o || o instanceof SatSet && Arrays.equals(words, ((SatSet) o).words);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(words);
+	}
+
+	/**
+	 * @return RINEX 3.02 satellite codes, e.g. "G01 G05 R12 E07"
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (int index = nextIndex(0); index >= 0; index = nextIndex(index + 1)) {
+			SatSystem system = SatSystem.byGlobalIndex(index);
+			int number = system.idToRinexNumber(SatSystem.globalIndexToId(index));
+			if (sb.length() > 0) sb.append(' ');
+			sb.append(system.charCode);
+			if (number < 10) sb.append('0');
+			sb.append(number);
+		}
+		return sb.toString();
+	}
+}
@@ -23,6 +23,10 @@ public enum SatSystem {
 	public final int min2Id;
 	public final int max2Id;
 	public final int numSats;
+	/**
+	 * Number of ids, idToIndex(id) is 1..numIds
+	 */
+	public final int numIds;
 	@NotNull
 	public final String threeLetterName;
 	/**
@@ -56,6 +60,28 @@ public enum SatSystem {
 		return id + 1 - min1Id;
 	}
 
+	/**
+	 * Satellite id -> number in RINEX 3.02 satellite code, e.g. 12 for R12; SBAS numbers are PRN-100
+	 */
+	public int idToRinexNumber(int id) {
+		return this == SBAS ? id - 100 : idToIndex(id);
+	}
+
+	/**
+	 * Number in RINEX 3.02 satellite code -> satellite id, or -1 if not valid for this system
+	 */
+	public int rinexNumberToId(int number) {
+		if (this == SBAS) return hasId(number + 100) ? number + 100 : -1;
+		return (number >= 1 && number <= numIds) ? indexToId(number) : -1;
+	}
+
+	/**
+	 * First global index of this system, its ids are firstGlobalIndex()..firstGlobalIndex()+numIds-1
+	 */
+	public int firstGlobalIndex() {
+		return FIRST_GLOBAL_INDEX[ordinal()];
+	}
+
 	SatSystem(int numSats, int minId, int maxId, String threeLetterName, char charCode) {
 		this(numSats, minId, maxId, -2, -1, threeLetterName, charCode);
 	}
@@ -69,8 +95,9 @@ public enum SatSystem {
 		this.max1Id = max1Id;
 		this.min2Id = min2Id;
 		this.max2Id = max2Id;
+		this.numIds = max1Id - min1Id + 1 + ((min2Id >= 0 && max2Id >= 0) ? (max2Id - min2Id + 1) : 0);
 		if (numSats < 0) {
-			this.numSats = max1Id - min1Id + 1 + ((min2Id >= 0 && max2Id >= 0) ? (max2Id - min2Id + 1) : 0);
+			this.numSats = numIds;
 		} else {
 			this.numSats = numSats;
 		}
@@ -81,23 +108,39 @@ public enum SatSystem {
 	public static final int count = values().length;
 
 	public static boolean isValidId(short id) {
-		return byId(id) != null;
+		return id >= 0 && id < BY_ID.length && BY_ID[id] != null;
 	}
 
 	@Nullable
 	public static SatSystem byId(int id) {
-		for (SatSystem satSystem : values()) {
-			if (satSystem.hasId(id)) return satSystem;
-		}
-		return null;
+		return (id >= 0 && id < BY_ID.length) ? BY_ID[id] : null;
 	}
 
 	@Nullable
 	public static SatSystem byCharCode(char c) {
-		for (SatSystem gnss : values()) {
-			if (gnss.charCode == c) return gnss;
-		}
-		return null;
+		return c < BY_CHAR_CODE.length ? BY_CHAR_CODE[c] : null;
+	}
+
+	/**
+	 * Satellite id -> global index 0..totalNumIds-1, dense over all systems, or -1 if id is not valid
+	 */
+	public static int globalIndex(int id) {
+		return (id >= 0 && id < ID_TO_GLOBAL_INDEX.length) ? ID_TO_GLOBAL_INDEX[id] : -1;
+	}
+
+	/**
+	 * Global index 0..totalNumIds-1 -> satellite id
+	 */
+	public static int globalIndexToId(int index) {
+		return GLOBAL_INDEX_TO_ID[index];
+	}
+
+	/**
+	 * Global index 0..totalNumIds-1 -> system
+	 */
+	@NotNull
+	public static SatSystem byGlobalIndex(int index) {
+		return BY_ID[GLOBAL_INDEX_TO_ID[index]];
 	}
 
 	public static EnumSet<SatSystem> fromOneCharString(@NotNull String s) {
@@ -112,6 +155,21 @@ public enum SatSystem {
 
 	public static final int totalNumSats;
 	public static final int totalMaxId;
+	/**
+	 * Size of global index space, sum of numIds
+	 */
+	public static final int totalNumIds;
+	private static final int[] FIRST_GLOBAL_INDEX;
+	private static final int[] ID_TO_GLOBAL_INDEX;
+	private static final int[] GLOBAL_INDEX_TO_ID;
+	/**
+	 * 0..totalMaxId -> system having this id, or null
+	 */
+	private static final SatSystem[] BY_ID;
+	/**
+	 * ASCII -> system with this charCode, or null
+	 */
+	private static final SatSystem[] BY_CHAR_CODE = new SatSystem[128];
 	static {
 		int n = 0;
 		int maxid = 0;
@@ -121,5 +179,36 @@ public enum SatSystem {
 		}
 		totalNumSats = n;
 		totalMaxId = maxid;
+		BY_ID = new SatSystem[maxid + 1];
+		for (int id = 0; id <= maxid; id++) {
+			for (SatSystem system : values()) {
+				if (system.hasId(id)) {
+					BY_ID[id] = system;
+					break;
+				}
+			}
+		}
+		for (SatSystem system : values()) {
+			if (BY_CHAR_CODE[system.charCode] == null) BY_CHAR_CODE[system.charCode] = system;
+		}
+		FIRST_GLOBAL_INDEX = new int[count];
+		int nids = 0;
+		for (SatSystem system : values()) {
+			FIRST_GLOBAL_INDEX[system.ordinal()] = nids;
+			nids += system.numIds;
+		}
+		totalNumIds = nids;
+		ID_TO_GLOBAL_INDEX = new int[maxid + 1];
+		GLOBAL_INDEX_TO_ID = new int[nids];
+		for (int id = 0; id <= maxid; id++) {
+			SatSystem system = BY_ID[id];
+			if (system == null) {
+				ID_TO_GLOBAL_INDEX[id] = -1;
+			} else {
+				int index = FIRST_GLOBAL_INDEX[system.ordinal()] + system.idToIndex(id) - 1;
+				ID_TO_GLOBAL_INDEX[id] = index;
+				GLOBAL_INDEX_TO_ID[index] = id;
+			}
+		}
 	}
 }
@@ -0,0 +1,98 @@
+package aero.geosystems.gnss;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Signal of a satellite packed into a positive int: satellite id, {@link RawSignal#ordinal()} and GLONASS
+ * frequency channel (0 for other systems).
+ * <pre>
+ * bits 16..23  satellite id
+ * bits  8..15  RawSignal ordinal
+ * bits  0..7   frequency channel, signed
+ * </pre>
+ * Zero is never a valid key. Keys are equal iff tuples are equal, and sort by satellite id, then signal.
+ *
+ * @see SignalKeySet
+ * @see SignalKeyDoubleMap
+ * @see SignalKeyObjectMap
+ */
+public final class SignalKey {
+	private SignalKey() {
+	}
+
+	@Contract(pure = true)
+	public static int of(int id, @NotNull RawSignal signal) {
+		return of(id, signal, 0);
+	}
+
+	/**
+	 * @throws IllegalArgumentException if satellite id is not valid or channel is not -128..127
+	 */
+	@Contract(pure = true)
+	public static int of(int id, @NotNull RawSignal signal, int channel) {
+		if (SatSystem.globalIndex(id) < 0) throw new IllegalArgumentException("Invalid satellite id " + id);
+		if (channel != (byte) channel) throw new IllegalArgumentException("Invalid frequency channel " + channel);
+		return id << 16 | signal.ordinal() << 8 | (channel & 0xff);
+	}
+
+	@Contract(pure = true)
+	public static int id(int key) {
+		return key >>> 16;
+	}
+
+	@Nullable
+	@Contract(pure = true)
+	public static SatSystem system(int key) {
+		return SatSystem.byId(key >>> 16);
+	}
+
+	/**
+	 * @return Satellite number as in RINEX 3.02 satellite code
+	 */
+	@Contract(pure = true)
+	public static int rinexNumber(int key) {
+		SatSystem system = system(key);
+		return system == null ? -1 : system.idToRinexNumber(key >>> 16);
+	}
+
+	@Nullable
+	@Contract(pure = true)
+	public static RawSignal signal(int key) {
+		return RawSignal.forIdx((key >>> 8) & 0xff);
+	}
+
+	@Contract(pure = true)
+	public static int channel(int key) {
+		return (byte) key;
+	}
+
+	/**
+	 * @return Same key with other signal
+	 */
+	@Contract(pure = true)
+	public static int withSignal(int key, @NotNull RawSignal signal) {
+		return key & 0xffff00ff | signal.ordinal() << 8;
+	}
+
+	/**
+	 * @return e.g. "R12 GLO_L1_CA k=-3", "G05 GPS_L1_CA"
+	 */
+	@NotNull
+	public static String toString(int key) {
+		SatSystem system = system(key);
+		StringBuilder sb = new StringBuilder(24);
+		if (system == null) {
+			sb.append('?').append(id(key));
+		} else {
+			int number = system.idToRinexNumber(id(key));
+			sb.append(system.charCode);
+			if (number < 10) sb.append('0');
+			sb.append(number);
+		}
+		sb.append(' ').append(signal(key));
+		if (channel(key) != 0) sb.append(" k=").append(channel(key));
+		return sb.toString();
+	}
+}
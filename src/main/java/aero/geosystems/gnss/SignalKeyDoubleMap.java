@@ -0,0 +1,85 @@
+package aero.geosystems.gnss;
+
+import java.util.Arrays;
+
+/**
+ * {@link SignalKey} -> double, without boxing
+ *
+ * @see AbstractSignalKeyTable
+ */
+public final class SignalKeyDoubleMap extends AbstractSignalKeyTable {
+	private double[] values;
+
+	public SignalKeyDoubleMap() {
+		this(16);
+	}
+
+	public SignalKeyDoubleMap(int expectedSize) {
+		super(expectedSize);
+		values = new double[capacity()];
+	}
+
+	/**
+	 * @return Value of key, or absent if there is none
+	 */
+	public double get(int key, double absent) {
+		int slot = find(key);
+		return slot < 0 ? absent : values[slot];
+	}
+
+	public double valueAt(int slot) {
+		return values[slot];
+	}
+
+	public void put(int key, double value) {
+		int slot = insert(key);
+		values[slot < 0 ? ~slot : slot] = value;
+	}
+
+	/**
+	 * Adds delta to value of key, absent value counts as 0
+	 *
+	 * @return New value
+	 */
+	public double add(int key, double delta) {
+		int slot = insert(key);
+		if (slot < 0) {
+			return values[~slot] = delta;
+		}
+		return values[slot] += delta;
+	}
+
+	/**
+	 * @return true if key was present
+	 */
+	public boolean remove(int key) {
+		return delete(key) >= 0;
+	}
+
+	@Override
+	Object swapValues(int capacity) {
+		double[] old = values;
+		values = new double[capacity];
+		return old;
+	}
+
+	@Override
+	void rehashValue(Object oldValues, int from, int to) {
+		values[to] = ((double[]) oldValues)[from];
+	}
+
+	@Override
+	void moveValue(int from, int to) {
+		values[to] = values[from];
+	}
+
+	@Override
+	void clearValue(int slot) {
+		values[slot] = 0;
+	}
+
+	@Override
+	void clearValues() {
+		Arrays.fill(values, 0);
+	}
+}
@@ -0,0 +1,90 @@
+package aero.geosystems.gnss;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * {@link SignalKey} -> object
+ *
+ * @see AbstractSignalKeyTable
+ */
+public final class SignalKeyObjectMap<T> extends AbstractSignalKeyTable {
+	private Object[] values;
+
+	public SignalKeyObjectMap() {
+		this(16);
+	}
+
+	public SignalKeyObjectMap(int expectedSize) {
+		super(expectedSize);
+		values = new Object[capacity()];
+	}
+
+	@Nullable
+	@SuppressWarnings("unchecked")
+	public T get(int key) {
+		int slot = find(key);
+		return slot < 0 ? null : (T) values[slot];
+	}
+
+	@NotNull
+	@SuppressWarnings("unchecked")
+	public T valueAt(int slot) {
+		return (T) values[slot];
+	}
+
+	/**
+	 * @return Previous value
+	 */
+	@Nullable
+	@SuppressWarnings("unchecked")
+	public T put(int key, @NotNull T value) {
+		int slot = insert(key);
+		if (slot < 0) {
+			values[~slot] = value;
+			return null;
+		}
+		T prev = (T) values[slot];
+		values[slot] = value;
+		return prev;
+	}
+
+	/**
+	 * @return Removed value
+	 */
+	@Nullable
+	public T remove(int key) {
+		T prev = get(key);
+		delete(key);
+		return prev;
+	}
+
+	@Override
+	Object swapValues(int capacity) {
+		Object[] old = values;
+		values = new Object[capacity];
+		return old;
+	}
+
+	@Override
+	void rehashValue(Object oldValues, int from, int to) {
+		values[to] = ((Object[]) oldValues)[from];
+	}
+
+	@Override
+	void moveValue(int from, int to) {
+		values[to] = values[from];
+	}
+
+	@Override
+	void clearValue(int slot) {
+		values[slot] = null;
+	}
+
+	@Override
+	void clearValues() {
+		Arrays.fill(values, null);
+	}
+}
@@ -0,0 +1,51 @@
+package aero.geosystems.gnss;
+
+/**
+ * Set of {@link SignalKey}s without boxing
+ *
+ * @see AbstractSignalKeyTable
+ */
+public final class SignalKeySet extends AbstractSignalKeyTable {
+	public SignalKeySet() {
+		this(16);
+	}
+
+	public SignalKeySet(int expectedSize) {
+		super(expectedSize);
+	}
+
+	/**
+	 * @return true if key was added
+	 */
+	public boolean add(int key) {
+		return insert(key) < 0;
+	}
+
+	/**
+	 * @return true if key was present
+	 */
+	public boolean remove(int key) {
+		return delete(key) >= 0;
+	}
+
+	@Override
+	Object swapValues(int capacity) {
+		return null;
+	}
+
+	@Override
+	void rehashValue(Object oldValues, int from, int to) {
+	}
+
+	@Override
+	void moveValue(int from, int to) {
+	}
+
+	@Override
+	void clearValue(int slot) {
+	}
+
+	@Override
+	void clearValues() {
+	}
+}
@@ -0,0 +1,414 @@
+package aero.geosystems.gnss;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.util.Arrays;
+
+/**
+ * SP3-c/SP3-d precise orbit and clock file.
+ * <p/>
+ * File is memory-mapped and parsed from bytes by fixed columns, without creating a String per line.
+ * Positions [m] and clocks [s] are kept in one {@code double[]} column per satellite and component, indexed by
+ * epoch number; missing and bad values are NaN. Epochs are regular (start + k * interval), so interpolation
+ * finds its window by index arithmetic. Velocity records are skipped.
+ * <p/>
+ * Epoch times are converted to GPS time ns ({@link GpsTimeNs}) from the file's time system.
+ */
+public final class Sp3File implements EphemerisSource {
+	public static final int DEFAULT_ORDER = 10;
+	private static final int NCOMP = 4;
+	private static final double BAD_CLOCK = 999999.0;
+
+	private final char version;
+	@NotNull
+	private final String timeSystem;
+	private final long start;
+	private final long interval;
+	private final int nepochs;
+	@NotNull
+	private final SatSet satellites = new SatSet();
+	/**
+	 * [global satellite index * NCOMP + component] -> values by epoch; component X, Y, Z [m], clock [s]
+	 */
+	private final double[][] columns = new double[SatSystem.totalNumIds * NCOMP][];
+	private final Ephemeris[] ephemerides = new Ephemeris[SatSystem.totalNumIds];
+	private volatile int order = DEFAULT_ORDER;
+
+	/**
+	 * Reads file through a read-only memory mapping
+	 */
+	@NotNull
+	public static Sp3File read(@NotNull File file) throws IOException, ParseException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			return parse(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Parses SP3 contents from position to limit of buffer; buffer position is not changed
+	 *
+	 * @throws ParseException on malformed contents, errorOffset is line number (1-based)
+	 */
+	@NotNull
+	public static Sp3File parse(@NotNull ByteBuffer buf) throws ParseException {
+		return new Sp3File(new Lines(buf));
+	}
+
+	private Sp3File(Lines in) throws ParseException {
+		if (!in.next() || in.at(0) != '#' || (in.at(1) != 'c' && in.at(1) != 'd')) {
+			throw new ParseException("Not an SP3-c/d file", 1);
+		}
+		version = (char) in.at(1);
+		nepochs = (int) in.number(32, 39, 0);
+		if (!in.next() || in.at(0) != '#' || in.at(1) != '#') throw new ParseException("Expected ## line", in.lineNo);
+		interval = in.number(24, 38, 9);
+		if (interval <= 0 || nepochs <= 0) throw new ParseException("Invalid epoch interval or count", in.lineNo);
+		String ts = null;
+		while (in.next() && in.at(0) != '*') {
+			if (in.at(0) == '+' && in.at(1) == ' ') {
+				for (int k = 0; k < 17; k++) {
+					int col = 9 + 3 * k;
+					if (in.at(col + 2) == ' ') break;
+					int sat = in.satellite(col);
+					if (sat >= 0) {
+						satellites.add(sat);
+						for (int c = 0; c < NCOMP; c++) {
+							double[] column = new double[nepochs];
+							Arrays.fill(column, Double.NaN);
+							columns[sat * NCOMP + c] = column;
+						}
+					}
+				}
+			} else if (in.at(0) == '%' && in.at(1) == 'c' && ts == null) {
+				ts = in.string(9, 12).trim();
+			}
+		}
+		timeSystem = ts == null || ts.isEmpty() || ts.startsWith("cc") ? "GPS" : ts;
+		long first = Long.MIN_VALUE;
+		int epoch = -1;
+		do {
+			byte type = in.at(0);
+			if (type == '*') {
+				long t = in.epoch(timeSystem);
+				if (first == Long.MIN_VALUE) first = t;
+				long dt = t - first;
+				if (dt % interval != 0 || dt / interval >= nepochs || dt / interval <= epoch) {
+					throw new ParseException("Irregular epoch " + GpsTimeNs.toString(t), in.lineNo);
+				}
+				epoch = (int) (dt / interval);
+			} else if (type == 'P') {
+				if (epoch < 0) throw new ParseException("Record before first epoch", in.lineNo);
+				int sat = in.satellite(1);
+				if (sat < 0 || columns[sat * NCOMP] == null) continue;
+				double x = in.number(4, 18, 6) / 1e3;
+				double y = in.number(18, 32, 6) / 1e3;
+				double z = in.number(32, 46, 6) / 1e3;
+				if (x != 0 || y != 0 || z != 0) {
+					columns[sat * NCOMP + Ephemeris.X][epoch] = x;
+					columns[sat * NCOMP + Ephemeris.Y][epoch] = y;
+					columns[sat * NCOMP + Ephemeris.Z][epoch] = z;
+				}
+				long clk = in.number(46, 60, 6);
+				if (Math.abs(clk) < BAD_CLOCK * 1e6) {
+					columns[sat * NCOMP + 3][epoch] = clk / 1e12;
+				}
+			} else if (type == 'E' && in.at(1) == 'O' && in.at(2) == 'F') {
+				break;
+			}
+		} while (in.next());
+		start = first == Long.MIN_VALUE ? 0 : first;
+		for (int sat = satellites.nextIndex(0); sat >= 0; sat = satellites.nextIndex(sat + 1)) {
+			ephemerides[sat] = new SatEphemeris(sat);
+		}
+	}
+
+	/**
+	 * @return 'c' or 'd'
+	 */
+	public char getVersion() {
+		return version;
+	}
+
+	/**
+	 * @return Time system of the file, e.g. "GPS", "UTC"
+	 */
+	@NotNull
+	public String getTimeSystem() {
+		return timeSystem;
+	}
+
+	/**
+	 * @return Time of first epoch, GPS time ns
+	 */
+	public long getStart() {
+		return start;
+	}
+
+	/**
+	 * @return Epoch interval [ns]
+	 */
+	public long getInterval() {
+		return interval;
+	}
+
+	public int getEpochCount() {
+		return nepochs;
+	}
+
+	/**
+	 * @return GPS time ns of epoch 0..getEpochCount()-1
+	 */
+	public long epochTime(int epoch) {
+		return start + epoch * interval;
+	}
+
+	/**
+	 * @return Satellites listed in header; do not modify
+	 */
+	@NotNull
+	public SatSet getSatellites() {
+		return satellites;
+	}
+
+	/**
+	 * @param sat       Global satellite index
+	 * @param component {@link Ephemeris#X}, {@link Ephemeris#Y}, {@link Ephemeris#Z} [m] or 3 for clock [s]
+	 * @return Values by epoch, NaN if missing, or null if satellite is not in file; do not modify
+	 */
+	@Nullable
+	public double[] column(int sat, int component) {
+		return columns[sat * NCOMP + component];
+	}
+
+	/**
+	 * @param order Number of epochs used for Lagrange interpolation of position, default 10
+	 */
+	public void setOrder(int order) {
+		if (order < 2) throw new IllegalArgumentException("order " + order);
+		this.order = order;
+	}
+
+	/**
+	 * Interpolates satellite at t: position with Lagrange polynomial over {@link #setOrder order} epochs around t,
+	 * velocity by its central difference over 1 s, clock linearly between neighbour epochs. Writes
+	 * {@link Ephemeris#STRIDE} values like {@link Ephemeris#evaluate}.
+	 *
+	 * @param t GPS time ns
+	 * @return false if satellite is not in file, t is outside of file or positions are missing; clock is NaN if missing
+	 */
+	public boolean interpolate(int sat, long t, @NotNull double[] dst, int off) {
+		double[] xs = columns[sat * NCOMP];
+		if (xs == null) return false;
+		int order = Math.min(this.order, nepochs);
+		long dt = t - start;
+		if (dt < 0 || dt > (nepochs - 1) * interval) return false;
+		int k = (int) (dt / interval);
+		int first = windowStart(k, order);
+		double[] ys = columns[sat * NCOMP + Ephemeris.Y], zs = columns[sat * NCOMP + Ephemeris.Z];
+		double h = GpsTimeNs.NS_IN_SECOND / 2.0 / interval;
+		double u = (double) (dt - first * interval) / interval;
+		for (int j = 0; j < NCOMP - 1; j++) {
+			double[] col = j == 0 ? xs : j == 1 ? ys : zs;
+			double p = lagrange(col, first, order, u);
+			if (Double.isNaN(p)) return false;
+			dst[off + j] = p;
+			dst[off + Ephemeris.VX + j] = (lagrange(col, first, order, u + h) - lagrange(col, first, order, u - h))
+					* GpsTimeNs.NS_IN_SECOND / 2 / (h * interval);
+		}
+		double[] clk = columns[sat * NCOMP + 3];
+		int k1 = Math.min(k + 1, nepochs - 1);
+		double c0 = clk[k], c1 = clk[k1];
+		double drift = k1 == k ? 0 : (c1 - c0) / (interval / 1e9);
+		dst[off + Ephemeris.CLOCK_BIAS] = c0 + drift * ((dt - k * interval) / 1e9);
+		dst[off + Ephemeris.CLOCK_DRIFT] = drift;
+		return true;
+	}
+
+	/**
+	 * Same as {@link #interpolate}, as an {@link Ephemeris} valid over the whole file; e.g. to fill
+	 * {@link OrbitCache}
+	 *
+	 * @return null if satellite is not in file, t is outside of file or positions are missing in the interpolation
+	 * window of t
+	 */
+	@Nullable
+	@Override
+	public Ephemeris get(int sat, long t) {
+		Ephemeris eph = ephemerides[sat];
+		long dt = t - start;
+		if (eph == null || dt < 0 || dt > (nepochs - 1) * interval) return null;
+		int order = Math.min(this.order, nepochs);
+		int first = windowStart((int) (dt / interval), order);
+		for (int j = 0; j < NCOMP - 1; j++) {
+			double[] col = columns[sat * NCOMP + j];
+			for (int i = first; i < first + order; i++) {
+				if (Double.isNaN(col[i])) return null;
+			}
+		}
+		return eph;
+	}
+
+	/**
+	 * @return First epoch of interpolation window of order epochs around epoch k
+	 */
+	private int windowStart(int k, int order) {
+		return Math.max(0, Math.min(k - (order - 1) / 2, nepochs - order));
+	}
+
+	/**
+	 * Lagrange polynomial through col[first..first+order-1] at nodes 0..order-1, evaluated at u
+	 */
+	private static double lagrange(double[] col, int first, int order, double u) {
+		double sum = 0;
+		for (int j = 0; j < order; j++) {
+			double w = 1;
+			for (int m = 0; m < order; m++) {
+				if (m != j) w *= (u - m) / (j - m);
+			}
+			sum += w * col[first + j];
+		}
+		return sum;
+	}
+
+	private final class SatEphemeris implements Ephemeris {
+		private final int sat;
+
+		SatEphemeris(int sat) {
+			this.sat = sat;
+		}
+
+		@Override
+		public int getSatId() {
+			return SatSystem.globalIndexToId(sat);
+		}
+
+		@Override
+		public long getToe() {
+			return start;
+		}
+
+		@Override
+		public void evaluate(long t, double[] dst, int off) {
+			if (!interpolate(sat, t, dst, off)) Arrays.fill(dst, off, off + STRIDE, Double.NaN);
+		}
+	}
+
+	/**
+	 * Lines of a byte buffer, read by absolute column
+	 */
+	private static final class Lines {
+		final ByteBuffer buf;
+		final int limit;
+		int pos;
+		int lineStart;
+		int lineEnd;
+		int lineNo;
+
+		Lines(ByteBuffer buf) {
+			this.buf = buf;
+			this.pos = buf.position();
+			this.limit = buf.limit();
+		}
+
+		boolean next() {
+			if (pos >= limit) return false;
+			lineStart = pos;
+			while (pos < limit && buf.get(pos) != '\n') pos++;
+			lineEnd = pos;
+			if (lineEnd > lineStart && buf.get(lineEnd - 1) == '\r') lineEnd--;
+			pos++;
+			lineNo++;
+			return true;
+		}
+
+		/**
+		 * @return Byte at 0-based column, space beyond end of line
+		 */
+		byte at(int col) {
+			int i = lineStart + col;
+			return i < lineEnd ? buf.get(i) : (byte) ' ';
+		}
+
+		String string(int from, int to) {
+			StringBuilder sb = new StringBuilder(to - from);
+			for (int col = from; col < to; col++) sb.append((char) at(col));
+			return sb.toString();
+		}
+
+		/**
+		 * Parses decimal number in columns [from, to)
+		 *
+		 * @param scale Decimal digits after point to keep
+		 * @return Number * 10^scale, fraction digits beyond scale are truncated
+		 */
+		long number(int from, int to, int scale) throws ParseException {
+			int col = from;
+			while (col < to && at(col) == ' ') col++;
+			boolean neg = false;
+			if (col < to && (at(col) == '-' || at(col) == '+')) neg = at(col++) == '-';
+			long v = 0;
+			int digits = 0, frac = -1;
+			for (; col < to; col++) {
+				byte c = at(col);
+				if (c >= '0' && c <= '9') {
+					if (frac < scale) {
+						v = v * 10 + (c - '0');
+						if (frac >= 0) frac++;
+					}
+					digits++;
+				} else if (c == '.' && frac < 0) {
+					frac = 0;
+				} else if (c == ' ') {
+					break;
+				} else {
+					throw new ParseException("Invalid number at column " + (col + 1), lineNo);
+				}
+			}
+			while (col < to && at(col) == ' ') col++;
+			if (digits == 0 || col < to) throw new ParseException("Invalid number at column " + (from + 1), lineNo);
+			for (int i = Math.max(frac, 0); i < scale; i++) v *= 10;
+			return neg ? -v : v;
+		}
+
+		/**
+		 * @return Global satellite index of token like "G01" (" 01" is GPS), or -1 if system is not supported
+		 */
+		int satellite(int col) throws ParseException {
+			byte c = at(col);
+			SatSystem system = c == ' ' ? SatSystem.GPS : SatSystem.byCharCode((char) c);
+			int number = (int) number(col + 1, col + 3, 0);
+			if (system == null) return -1;
+			return SatSystem.globalIndex(system.rinexNumberToId(number));
+		}
+
+		/**
+		 * @return Time of epoch line, GPS time ns
+		 */
+		long epoch(String timeSystem) throws ParseException {
+			long sec = number(20, 31, 9);
+			long ms = Datetime.timeFromFields((int) number(3, 7, 0), (int) number(8, 10, 0), (int) number(11, 13, 0),
+					(int) number(14, 16, 0), (int) number(17, 19, 0), 0, 0) + sec / GpsTimeNs.NS_IN_MS;
+			long gpstime;
+			if ("UTC".equals(timeSystem)) {
+				gpstime = GnssUtils.unix2gps(ms);
+			} else if ("GLO".equals(timeSystem)) {
+				gpstime = GnssUtils.unix2gps(ms - 3 * GnssUtils.MS_IN_HOUR);
+			} else if ("TAI".equals(timeSystem)) {
+				gpstime = ms - GnssUtils.GPS_UNIX_DIFF - LeapSecondTable.GPS_TAI_UTC * 1000L;
+			} else if ("BDT".equals(timeSystem)) {
+				gpstime = ms - GnssUtils.GPS_UNIX_DIFF - KeplerEphemeris.BDT_GPST_DIFF_S * 1000L;
+			} else {
+				// GPS, GAL, QZS, IRN: GPS time scale
+				gpstime = ms - GnssUtils.GPS_UNIX_DIFF;
+			}
+			return GpsTimeNs.fromGpstime(gpstime, sec % GpsTimeNs.NS_IN_MS);
+		}
+	}
+}
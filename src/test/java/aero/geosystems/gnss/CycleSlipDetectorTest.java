@@ -0,0 +1,88 @@
+package aero.geosystems.gnss;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CycleSlipDetectorTest {
+	private final LinearCombination lc = LinearCombination.of(RawSignal.GLO_L1_CA, RawSignal.GLO_L2_P, -3);
+	private final Random rnd = new Random(3);
+
+	/**
+	 * Feeds 1 Hz epochs t0..t1-1 with given extra cycles on L1 and L2 from tslip on
+	 *
+	 * @return Flags at tslip, flags of other epochs must have no slips
+	 */
+	private int run(CycleSlipDetector csd, int sat, int t0, int t1, int tslip, double slip1, double slip2, boolean withDoppler) {
+		double gamma = lc.frequency1 * lc.frequency1 / (lc.frequency2 * lc.frequency2);
+		int result = 0;
+		for (int t = t0; t < t1; t++) {
+			double rho = 2.2e7 + 800 * t, drho = 800;
+			double iono = 5 + 0.001 * t, diono = 0.001;
+			double l1 = (rho - iono) / lc.wavelength1 + 1000 + (t >= tslip ? slip1 : 0);
+			double l2 = (rho - gamma * iono) / lc.wavelength2 - 2000 + (t >= tslip ? slip2 : 0);
+			double p1 = rho + iono + rnd.nextGaussian() * 0.3;
+			double p2 = rho + gamma * iono + rnd.nextGaussian() * 0.3;
+			float d1 = withDoppler ? (float) (-(drho - diono) / lc.wavelength1) : Float.NaN;
+			float d2 = withDoppler ? (float) (-(drho - gamma * diono) / lc.wavelength2) : Float.NaN;
+			int flags = csd.update(sat, t * 1000L, -3, l1, p1, d1, 0, l2, p2, d2, 0);
+			if (t == tslip) result = flags;
+			else assertEquals("t=" + t, 0, flags & CycleSlipDetector.SLIP);
+		}
+		return result;
+	}
+
+	@Test
+	public void testSlips() {
+		CycleSlipDetector csd = new CycleSlipDetector(RawSignal.GLO_L1_CA, RawSignal.GLO_L2_P);
+		int sat = SatSystem.globalIndex(40);
+		assertEquals(0, run(csd, sat, 0, 200, -1, 0, 0, true));
+		assertEquals(CycleSlipDetector.GAP, run(csd, sat, 500, 600, 500, 0, 0, true));
+		int flags = run(csd, SatSystem.globalIndex(41), 200, 300, 250, 5, 0, true);
+		assertEquals(CycleSlipDetector.SLIP_MW | CycleSlipDetector.SLIP_GF | CycleSlipDetector.SLIP_DOPPLER, flags);
+		flags = run(csd, SatSystem.globalIndex(42), 300, 400, 350, 7, 7, false);
+		assertTrue((flags & CycleSlipDetector.SLIP_GF) != 0);
+		assertEquals(0, flags & CycleSlipDetector.SLIP_DOPPLER);
+		assertEquals(CycleSlipDetector.SLIP_LLI, CycleSlipDetector.SLIP_LLI &
+				csd.update(sat, 600_000, -3, 1.2e8, Double.NaN, Float.NaN, 1, 0.9e8, Double.NaN, Float.NaN, 0));
+	}
+
+	@Test
+	public void testRepeatedEpoch() {
+		CycleSlipDetector csd = new CycleSlipDetector(RawSignal.GLO_L1_CA, RawSignal.GLO_L2_P);
+		int sat = SatSystem.globalIndex(43);
+		assertEquals(0, run(csd, sat, 0, 100, -1, 0, 0, true));
+		// repeated and older epochs with different phases are ignored and keep the arc
+		assertEquals(0, csd.update(sat, 99_000, -3, 1.2e8, 2.2e7, Float.NaN, 0, 0.9e8, 2.2e7, Float.NaN, 0));
+		assertEquals(0, csd.update(sat, 50_000, -3, 1.2e8, 2.2e7, Float.NaN, 0, 0.9e8, 2.2e7, Float.NaN, 0));
+		assertEquals(0, run(csd, sat, 100, 200, 100, 0, 0, true));
+	}
+
+	@Test
+	public void testEpochObservations() {
+		CycleSlipDetector csd = new CycleSlipDetector(RawSignal.GPS_L1_CA, RawSignal.GPS_L2_PY_W);
+		LinearCombination gps = LinearCombination.of(RawSignal.GPS_L1_CA, RawSignal.GPS_L2_PY_W);
+		EpochObservations obs = new EpochObservations();
+		byte[] flags = new byte[SatSystem.totalNumIds];
+		int g1 = SatSystem.globalIndex(1), g2 = SatSystem.globalIndex(2);
+		for (int t = 0; t < 20; t++) {
+			obs.clear();
+			obs.setTime(t * 1000L);
+			for (int sat : new int[]{g1, g2}) {
+				double rho = 2.2e7 + 300 * t * (sat + 1);
+				double slip = (sat == g2 && t >= 10) ? 3 : 0;
+				obs.setPhase(sat, RawSignal.GPS_L1_CA, rho / gps.wavelength1 + slip, 0);
+				obs.setPhase(sat, RawSignal.GPS_L2_PY_W, rho / gps.wavelength2, 0);
+				obs.setCode(sat, RawSignal.GPS_L1_CA, rho);
+				obs.setCode(sat, RawSignal.GPS_L2_PY_W, rho);
+			}
+			int nslips = csd.update(obs, null, flags);
+			assertEquals("t=" + t, t == 10 ? 1 : 0, nslips);
+			assertEquals(0, flags[g1]);
+			assertEquals(t == 10, flags[g2] != 0);
+		}
+	}
+}
@@ -3,9 +3,13 @@ package aero.geosystems.gnss;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
+import java.time.LocalDate;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 /**
  * Created by IntelliJ IDEA.
@@ -296,4 +300,144 @@ public class DatetimeTest {
 		assertEquals(dt02.hour(), dt0.hour() + 1);
 		assertEquals(dt02.min(), dt0.min() + 2);
 	}
+
+	@Test
+	public void testCompiledFormat() {
+		String[] patterns = {Datetime.DEFAULT_FORMAT, Datetime.XML_FORMAT, Datetime.RFC_822_FORMAT,
+				"YYYY DDDD hh:mm PP", "Y-M-D H:m:s.cc c C", "\\YYYY\\"};
+		Datetime[] dts = {dt0, dt4, dt12, dt16, new Datetime(-1L), new Datetime(1999, 12, 31, 23, 59, 59, 999)};
+		StringBuilder sb = new StringBuilder("> ");
+		char[] chars = new char[64];
+		ByteBuffer buf = ByteBuffer.allocateDirect(64);
+		for (String pattern : patterns) {
+			DatetimeFormat f = DatetimeFormat.compile(pattern);
+			for (Datetime dt : dts) {
+				for (int tz : new int[]{0, 30, -90, 180}) {
+					String expected = dt.format(pattern, 0, tz);
+					assertEquals(expected, f.format(dt, tz));
+					sb.setLength(2);
+					assertEquals("> " + expected, f.formatTo(dt, tz, sb).toString());
+					int end = f.formatTo(dt, tz, chars, 1);
+					assertEquals(expected, new String(chars, 1, end - 1));
+					byte[] bytes = new byte[end + 1];
+					assertEquals(end + 1, f.formatTo(dt, tz, bytes, 2));
+					assertEquals(expected, new String(bytes, 2, end - 1, StandardCharsets.US_ASCII));
+					buf.clear();
+					buf.put((byte) '>');
+					f.formatTo(dt, tz, buf).flip();
+					assertEquals(expected.length() + 1, buf.remaining());
+					buf.get();
+					byte[] fromBuf = new byte[buf.remaining()];
+					buf.get(fromBuf);
+					assertEquals(expected, new String(fromBuf, StandardCharsets.US_ASCII));
+				}
+			}
+		}
+		assertEquals("2001-02-03 04:05:06.078", DatetimeFormat.DEFAULT.format(dt4));
+	}
+
+	@Test
+	public void testCompiledFormatShared() throws InterruptedException {
+		final Datetime dt = new Datetime(2001, 2, 3, 4, 5, 6, 78);
+		final int[] zones = {0, 30, -90, 180};
+		final String[] expected = new String[zones.length];
+		for (int k = 0; k < zones.length; k++) {
+			expected[k] = dt.format(Datetime.DEFAULT_FORMAT, 0, zones[k]);
+		}
+		final boolean[] failed = new boolean[1];
+		Thread[] threads = new Thread[zones.length];
+		for (int k = 0; k < zones.length; k++) {
+			final int zone = k;
+			threads[k] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						for (int i = 0; i < 10000; i++) {
+							if (!expected[zone].equals(DatetimeFormat.DEFAULT.format(dt, zones[zone]))) failed[0] = true;
+						}
+					} catch (RuntimeException e) {
+						failed[0] = true;
+					}
+				}
+			});
+			threads[k].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertFalse(failed[0]);
+		assertEquals(4, dt.hour24());
+	}
+
+	@Test
+	public void testCompiledParse() throws ParseException {
+		DatetimeParser p = DatetimeParser.compile("YYYY MM DD HH mm ss.ccc");
+		long expected = new Datetime(2019, 1, 24, 12, 30, 5, 120).getTime();
+		String line = "> 2019 01 24 12 30 05.1200000  0 22";
+		assertEquals(expected, p.parse(line, 2, line.length()));
+		assertEquals(expected, p.parse(new StringBuilder(line).delete(0, 2)));
+		byte[] ascii = line.getBytes(StandardCharsets.US_ASCII);
+		assertEquals(expected, p.parse(ascii, 2, ascii.length));
+		ByteBuffer buf = ByteBuffer.allocateDirect(ascii.length);
+		buf.put(ascii).flip();
+		assertEquals(expected, p.parse(buf, 2, buf.limit()));
+		assertEquals(0, buf.position());
+
+		assertEquals(new Datetime(2001, 2, 3, 4, 5, 6, 78).getTime(),
+				DatetimeParser.XML.parse("2001-02-03T05:07:06.078+01:02"));
+		assertEquals(new Datetime(2001, 11, 12).getTime(),
+				DatetimeParser.compile("YYYY MMM DD").parse("2001 Nov 12"));
+		assertEquals(new Datetime(2001, 2, 10, 13, 14, 0).getTime(),
+				DatetimeParser.compile("YYYY DDD h:mm pp").parse("2001 41 1:14 p.m."));
+	}
+
+	@Test(expected = ParseException.class)
+	public void testCompiledParseError() throws ParseException {
+		DatetimeParser.DEFAULT.parse("2001-02-03 04:05:O6.078");
+	}
+
+	@Test
+	public void testCivilDays() {
+		for (long days = -800000; days <= 800000; days += 13) {
+			LocalDate ld = LocalDate.ofEpochDay(days);
+			assertEquals(days, Datetime.daysFromCivil(ld.getYear(), ld.getMonthValue(), ld.getDayOfMonth()));
+			Datetime dt = new Datetime(days * GnssUtils.MS_IN_DAY + 3723004);
+			assertEquals("" + ld, ld.getYear(), dt.year());
+			assertEquals("" + ld, ld.getMonthValue(), dt.month());
+			assertEquals("" + ld, ld.getDayOfMonth(), dt.day());
+			assertEquals("" + ld, ld.getDayOfYear(), dt.dayOfYear());
+			assertEquals("" + ld, ld.getDayOfWeek().getValue() % 7, dt.dayOfWeekSZ());
+			assertEquals(1, dt.hour());
+			assertEquals(2, dt.min());
+			assertEquals(3, dt.sec());
+			assertEquals(4, dt.milli());
+			assertEquals(dt.getTime(), new Datetime(dt.year(), dt.month(), dt.day(), 1, 2, 3, 4).getTime());
+		}
+	}
+
+	@Test
+	public void testAddDays() {
+		Datetime dt = new Datetime(2000, 2, 29, 12, 0, 0);
+		for (int n : new int[]{1, -1, 30, -60, 365, 366, -366, 100000, -100000, 1000000}) {
+			LocalDate ld = LocalDate.of(2000, 2, 29).plusDays(n);
+			Datetime d = dt.duplicate().add(Datetime.DAY_OF_MONTH, n);
+			assertEquals("" + n, ld.toEpochDay() * GnssUtils.MS_IN_DAY + 12 * GnssUtils.MS_IN_HOUR, d.getTime());
+			assertEquals("" + n, ld.getDayOfMonth(), d.day());
+		}
+		assertEquals(new Datetime(2001, 3, 1).getTime(),
+				new Datetime(2000, 2, 29).add(Datetime.MONTH, 12).getTime());
+		assertEquals(new Datetime(1969, 12, 31, 23, 0, 0).getTime(),
+				new Datetime(1970, 1, 1).add(Datetime.HOUR_OF_DAY, -1).getTime());
+	}
+
+	@Test
+	public void testEpochStream() {
+		Datetime dt = new Datetime();
+		for (long t = -3 * GnssUtils.MS_IN_DAY - 500; t < 3 * GnssUtils.MS_IN_DAY; t += 997 * 61) {
+			dt.setTime(t);
+			Datetime fresh = new Datetime(t);
+			assertEquals(fresh.toString(), dt.toString());
+			dt.set(Datetime.DAY_OF_MONTH, 1);
+		}
+	}
 }
@@ -0,0 +1,90 @@
+package aero.geosystems.gnss;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class EphemerisStoreTest {
+	private static final long HOUR = GnssUtils.MS_IN_HOUR * GpsTimeNs.NS_IN_MS;
+	private static final long T0 = GpsTimeNs.fromWeekTowSeconds(2034, 0);
+
+	private static KeplerEphemeris gps(int id, long toe) {
+		KeplerEphemeris.Elements el = KeplerEphemerisTest.gpsElements();
+		el.satId = id;
+		el.toe = toe;
+		el.toc = toe;
+		return new KeplerEphemeris(el);
+	}
+
+	@Test
+	public void testSelection() {
+		EphemerisStore store = new EphemerisStore(4);
+		int sat = SatSystem.globalIndex(5);
+		assertNull(store.get(sat, T0));
+		KeplerEphemeris e2 = gps(5, T0 + 2 * HOUR);
+		KeplerEphemeris e4 = gps(5, T0 + 4 * HOUR);
+		KeplerEphemeris e8 = gps(5, T0 + 8 * HOUR);
+		assertTrue(store.put(e4));
+		assertTrue(store.put(e2));
+		assertTrue(store.put(e8));
+		assertFalse(store.put(e8));
+		assertEquals(3, store.size(sat));
+		assertSame(e8, store.latest(sat));
+		assertSame(e2, store.get(sat, T0));
+		assertNull(store.get(sat, T0 - 1));
+		assertSame(e2, store.get(sat, T0 + 3 * HOUR - 1));
+		assertSame(e4, store.get(sat, T0 + 3 * HOUR));
+		assertSame(e4, store.get(sat, T0 + 6 * HOUR - 1));
+		assertSame(e8, store.getById(5, T0 + 6 * HOUR));
+		assertNull(store.get(sat, T0 + 10 * HOUR + 1));
+		// stream of times, then jump back
+		for (long t = T0; t < T0 + 10 * HOUR; t += 60 * GpsTimeNs.NS_IN_SECOND) {
+			Ephemeris eph = store.get(sat, t);
+			long expected = t < T0 + 3 * HOUR ? e2.toe : t < T0 + 6 * HOUR ? e4.toe : e8.toe;
+			assertEquals(expected, eph.getToe());
+		}
+		assertSame(e2, store.get(sat, T0 + HOUR));
+
+		KeplerEphemeris e4b = gps(5, T0 + 4 * HOUR);
+		assertTrue(store.put(e4b));
+		assertSame(e4b, store.get(sat, T0 + 4 * HOUR));
+		assertTrue(store.put(gps(5, T0 + 6 * HOUR)));
+		assertTrue(store.put(gps(5, T0 + 10 * HOUR)));
+		assertEquals(4, store.size(sat));
+		assertFalse(store.put(gps(5, T0)));
+		assertNull(store.get(sat, T0 + HOUR));
+
+		store.removeExpired(T0 + 9 * HOUR);
+		assertEquals(2, store.size(sat));
+		store.removeExpired(T0 + 13 * HOUR);
+		assertEquals(0, store.size(sat));
+		assertNull(store.latest(sat));
+	}
+
+	@Test
+	public void testConcurrentPut() throws InterruptedException {
+		final EphemerisStore store = new EphemerisStore(100);
+		Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++) {
+			final int k = i;
+			threads[i] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					for (int n = 0; n < 25; n++) {
+						store.put(gps(1, T0 + (4 * n + k) * HOUR));
+					}
+				}
+			});
+			threads[i].start();
+		}
+		for (Thread thread : threads) thread.join();
+		assertEquals(100, store.size(0));
+		for (int n = 0; n < 100; n++) {
+			assertEquals(T0 + n * HOUR, store.get(0, T0 + n * HOUR).getToe());
+		}
+	}
+}
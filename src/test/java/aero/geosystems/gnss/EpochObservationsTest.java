@@ -0,0 +1,46 @@
+package aero.geosystems.gnss;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class EpochObservationsTest {
+	@Test
+	public void testStore() {
+		EpochObservations obs = new EpochObservations();
+		int g5 = SatSystem.globalIndex(5);
+		int r12 = SatSystem.globalIndex(SatSystem.GLONASS.rinexNumberToId(12));
+		for (int epoch = 0; epoch < 3; epoch++) {
+			obs.setCode(g5, RawSignal.GPS_L1_CA, 2.1e7 + epoch);
+			obs.setPhase(g5, RawSignal.GPS_L1_CA, 1.1e8, epoch == 1 ? 1 : 0);
+			obs.setSnr(g5, RawSignal.GPS_L1_CA, 45.5f);
+			obs.setCode(g5, RawSignal.GPS_L2_PY_W, 2.1e7 + 3);
+			obs.setDoppler(r12, RawSignal.GLO_L1_CA, -1234.5f);
+			assertEquals(3, obs.signalCount());
+			assertSame(RawSignal.GPS_L1_CA, obs.signalAt(0));
+			assertEquals(2.1e7 + epoch, obs.getCode(g5, RawSignal.GPS_L1_CA), 0);
+			assertEquals(2.1e7 + epoch, obs.codeColumn(RawSignal.GPS_L1_CA)[g5], 0);
+			assertEquals(epoch == 1 ? 1 : 0, obs.getLli(g5, RawSignal.GPS_L1_CA));
+			assertEquals(45.5f, obs.getSnr(g5, RawSignal.GPS_L1_CA), 0);
+			assertTrue(Double.isNaN(obs.getPhase(g5, RawSignal.GPS_L2_PY_W)));
+			assertTrue(Float.isNaN(obs.getDoppler(g5, RawSignal.GPS_L1_CA)));
+			assertTrue(Double.isNaN(obs.getCode(r12, RawSignal.GPS_L1_CA)));
+			assertTrue(Double.isNaN(obs.getCode(g5, RawSignal.GAL_E1C)));
+			assertEquals(-1234.5f, obs.getDoppler(r12, RawSignal.GLO_L1_CA), 0);
+			assertTrue(obs.has(g5, RawSignal.GPS_L2_PY_W, EpochObservations.CODE));
+			assertFalse(obs.has(g5, RawSignal.GPS_L2_PY_W, EpochObservations.PHASE));
+			assertEquals("G05", obs.present(RawSignal.GPS_L1_CA, EpochObservations.PHASE).toString());
+			assertEquals("G05 R12", obs.satellites().toString());
+			obs.clear();
+			assertEquals(0, obs.signalCount());
+			assertTrue(obs.satellites().isEmpty());
+			assertFalse(obs.has(g5, RawSignal.GPS_L1_CA, EpochObservations.CODE));
+			assertTrue(Double.isNaN(obs.codeColumn(RawSignal.GPS_L1_CA)[g5]));
+			assertEquals(0, obs.lliColumn(RawSignal.GPS_L1_CA)[g5]);
+			assertTrue(Float.isNaN(obs.dopplerColumn(RawSignal.GLO_L1_CA)[r12]));
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package aero.geosystems.gnss;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class GlonassEphemerisTest {
+	private static final long TB = GpsTimeNs.fromWeekTowSeconds(2034, 353700);
+
+	/**
+	 * Circular orbit of 25510 km radius, 64.8 deg inclination, starting over the equator
+	 */
+	static GlonassEphemeris.Elements elements(int slot) {
+		double r = 25510e3;
+		double v = Math.sqrt(GnssConstants.MU / r);
+		double inc = Math.toRadians(64.8);
+		GlonassEphemeris.Elements el = new GlonassEphemeris.Elements();
+		el.satId = SatSystem.GLONASS.rinexNumberToId(slot);
+		el.channel = -3;
+		el.tb = TB;
+		el.x = r;
+		el.vy = v * Math.cos(inc) - GnssConstants.OMEGA_EARTH * r;
+		el.vz = v * Math.sin(inc);
+		el.ax = 1e-6;
+		el.az = -2e-6;
+		el.tauN = 1.5e-5;
+		el.gammaN = 1e-12;
+		return el;
+	}
+
+	@Test
+	public void testEvaluate() {
+		GlonassEphemeris eph = new GlonassEphemeris(elements(7));
+		double[] d = new double[3 * Ephemeris.STRIDE];
+		eph.evaluate(TB, d, 0);
+		assertEquals(25510e3, d[Ephemeris.X], 0);
+		assertEquals(-1.5e-5, d[Ephemeris.CLOCK_BIAS], 0);
+		for (int dt = -900; dt <= 900; dt += 150) {
+			long t = TB + dt * GpsTimeNs.NS_IN_SECOND;
+			eph.evaluate(t, d, Ephemeris.STRIDE);
+			double r = Math.sqrt(d[8] * d[8] + d[9] * d[9] + d[10] * d[10]);
+			assertEquals(25510e3, r, 20e3);
+			assertEquals(-1.5e-5 + 1e-12 * dt, d[Ephemeris.STRIDE + Ephemeris.CLOCK_BIAS], 1e-20);
+			// velocity against central difference
+			eph.evaluate(t - GpsTimeNs.NS_IN_SECOND / 2, d, 0);
+			eph.evaluate(t + GpsTimeNs.NS_IN_SECOND / 2, d, 2 * Ephemeris.STRIDE);
+			for (int k = 0; k < 3; k++) {
+				assertEquals(d[2 * Ephemeris.STRIDE + k] - d[k], d[Ephemeris.STRIDE + Ephemeris.VX + k], 1e-3);
+			}
+		}
+	}
+
+	@Test
+	public void testPropagator() {
+		GlonassEphemeris eph1 = new GlonassEphemeris(elements(7));
+		GlonassEphemeris eph2 = new GlonassEphemeris(elements(8));
+		GlonassPropagator propagator = new GlonassPropagator();
+		double[] expected = new double[Ephemeris.STRIDE];
+		double[] actual = new double[2 * Ephemeris.STRIDE];
+		for (int dt = -900; dt <= 900; dt++) {
+			long t = TB + dt * GpsTimeNs.NS_IN_SECOND;
+			propagator.evaluate(new GlonassEphemeris[]{eph1, eph2}, 0, t, actual, 0, 2);
+			if (Math.floorMod(dt, 60) != 7) continue;
+			eph1.evaluate(t, expected, 0);
+			for (int k = 0; k < Ephemeris.STRIDE; k++) {
+				assertEquals("dt=" + dt, expected[k], actual[k], k < 3 ? 1e-3 : 1e-6);
+				assertEquals("dt=" + dt, expected[k], actual[Ephemeris.STRIDE + k], k < 3 ? 1e-3 : 1e-6);
+			}
+		}
+		// new ephemeris of same satellite restarts from its tb
+		GlonassEphemeris.Elements el = elements(7);
+		el.tb += 1800 * GpsTimeNs.NS_IN_SECOND;
+		GlonassEphemeris eph3 = new GlonassEphemeris(el);
+		propagator.evaluate(eph3, el.tb, actual, 0);
+		assertEquals(25510e3, actual[Ephemeris.X], 0);
+	}
+}
@@ -0,0 +1,270 @@
+package aero.geosystems.gnss;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.text.ParseException;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GnssUtilsTest {
+
+	private static int scanLeapSeconds(long[] epochs, long gt) {
+		for (int i = epochs.length - 1; i >= 0; i--) {
+			if (gt >= epochs[i]) return i + 1;
+		}
+		return 0;
+	}
+
+	private static int scanLeapSecondsU(long[] epochs, long gt) {
+		for (int i = epochs.length - 1; i >= 0; i--) {
+			if (gt >= epochs[i] - i * 1000) return i + 1;
+		}
+		return 0;
+	}
+
+	@Test
+	public void testLeapSecondsAroundEpochs() {
+		long[] epochs = GnssUtils.GPST_LEAP_EPOCHS;
+		for (long epoch : epochs) {
+			for (long gt = epoch - 2000; gt <= epoch + 2000; gt += 250) {
+				assertEquals("LS " + gt, scanLeapSeconds(epochs, gt), GnssUtils.leapSeconds(gt));
+				assertEquals("LSU " + gt, scanLeapSecondsU(epochs, gt), GnssUtils.leapSecondsU(gt));
+			}
+		}
+		// Jumping back and forth between intervals
+		for (int i = 0; i < epochs.length; i++) {
+			long gt = epochs[epochs.length - 1 - i] - 1;
+			assertEquals(scanLeapSeconds(epochs, gt), GnssUtils.leapSeconds(gt));
+			assertEquals(scanLeapSeconds(epochs, epochs[i]), GnssUtils.leapSeconds(epochs[i]));
+		}
+		assertEquals(0, GnssUtils.leapSeconds(Long.MIN_VALUE));
+		assertEquals(epochs.length, GnssUtils.leapSeconds(Long.MAX_VALUE));
+		assertEquals(0, GnssUtils.leapSecondsU(0));
+		assertEquals(epochs.length, GnssUtils.leapSecondsU(GnssUtils.Y2100));
+	}
+
+	@Test
+	public void testUnixRoundTrip() {
+		long[] epochs = GnssUtils.GPST_LEAP_EPOCHS;
+		for (long epoch : epochs) {
+			long gt = epoch + 1000;
+			assertEquals(gt, GnssUtils.unix2gps(GnssUtils.gps2unix(gt)));
+			gt = epoch - 1;
+			assertEquals(gt, GnssUtils.unix2gps(GnssUtils.gps2unix(gt)));
+		}
+		// 2017-01-01 00:00:00 UTC
+		assertEquals(1483228800000L, GnssUtils.gps2unix(GnssUtils.GPST_LEAP_EPOCHS[17] + 1000));
+	}
+
+	@Test
+	public void testIsLeapSecond() {
+		for (long epoch : GnssUtils.GPST_LEAP_EPOCHS) {
+			assertTrue(GnssUtils.isLeapSecond(epoch));
+			assertFalse(GnssUtils.isLeapSecond(epoch - 1000));
+		}
+	}
+
+	private static final String LEAP_SECONDS_LIST = "" +
+			"#\tUpdated through IERS Bulletin C 68\n" +
+			"#$\t 3929093563\n" +
+			"#@\t3960057600\n" +
+			"2272060800\t10\t# 1 Jan 1972\n" +
+			"2287785600\t11\t# 1 Jul 1972\n" +
+			"2303683200\t12\t# 1 Jan 1973\n" +
+			"2335219200\t13\t# 1 Jan 1974\n" +
+			"2366755200\t14\t# 1 Jan 1975\n" +
+			"2398291200\t15\t# 1 Jan 1976\n" +
+			"2429913600\t16\t# 1 Jan 1977\n" +
+			"2461449600\t17\t# 1 Jan 1978\n" +
+			"2492985600\t18\t# 1 Jan 1979\n" +
+			"2524521600\t19\t# 1 Jan 1980\n" +
+			"2571782400\t20\t# 1 Jul 1981\n" +
+			"2603318400\t21\t# 1 Jul 1982\n" +
+			"2634854400\t22\t# 1 Jul 1983\n" +
+			"2698012800\t23\t# 1 Jul 1985\n" +
+			"2776982400\t24\t# 1 Jan 1988\n" +
+			"2840140800\t25\t# 1 Jan 1990\n" +
+			"2871676800\t26\t# 1 Jan 1991\n" +
+			"2918937600\t27\t# 1 Jul 1992\n" +
+			"2950473600\t28\t# 1 Jul 1993\n" +
+			"2982009600\t29\t# 1 Jul 1994\n" +
+			"3029443200\t30\t# 1 Jan 1996\n" +
+			"3076704000\t31\t# 1 Jul 1997\n" +
+			"3124137600\t32\t# 1 Jan 1999\n" +
+			"3345062400\t33\t# 1 Jan 2006\n" +
+			"3439756800\t34\t# 1 Jan 2009\n" +
+			"3550089600\t35\t# 1 Jul 2012\n" +
+			"3644697600\t36\t# 1 Jul 2015\n" +
+			"3692217600\t37\t# 1 Jan 2017\n" +
+			"#h\t16edd0f0 3666784f 37db6bdd e74ced87 59af48f1\n";
+
+	@Test
+	public void testParseLeapSecondsList() throws IOException, ParseException {
+		LeapSecondTable table = LeapSecondTable.parseLeapSecondsList(new StringReader(LEAP_SECONDS_LIST));
+		assertArrayEquals(GnssUtils.GPST_LEAP_EPOCHS, table.epochs());
+		assertTrue(table.extendsTable(GnssUtils.BUILTIN_LEAP_SECONDS));
+		// 28 Jun 2025 00:00:00 UTC
+		assertEquals(new Datetime(2025, 6, 28).getTime(), GnssUtils.gps2unix(table.expires()));
+	}
+
+	@Test(expected = ParseException.class)
+	public void testParseLeapSecondsListGap() throws IOException, ParseException {
+		LeapSecondTable.parseLeapSecondsList(new StringReader(LEAP_SECONDS_LIST.replace("3029443200\t30", "3029443200\t31")));
+	}
+
+	@Test
+	public void testSetLeapSecondTable() {
+		long[] epochs = Arrays.copyOf(GnssUtils.GPST_LEAP_EPOCHS, GnssUtils.GPST_LEAP_EPOCHS.length + 1);
+		// hypothetical 31.12.2026 23:59:60
+		epochs[epochs.length - 1] = GnssUtils.unix2gps_leap(new Datetime(2027, 1, 1).getTime()) + 18000;
+		long after = epochs[epochs.length - 1] + 1000;
+		LeapSecondTable table = new LeapSecondTable(epochs);
+		assertEquals(18, GnssUtils.leapSeconds(after));
+		GnssUtils.setLeapSecondTable(table);
+		try {
+			assertEquals(19, GnssUtils.leapSeconds(after));
+			assertEquals(new Datetime(2027, 1, 1).getTime(), GnssUtils.gps2unix(after));
+			assertEquals(after, GnssUtils.unix2gps(new Datetime(2027, 1, 1).getTime()));
+		} finally {
+			GnssUtils.setLeapSecondTable(GnssUtils.BUILTIN_LEAP_SECONDS);
+		}
+		assertEquals(18, GnssUtils.leapSeconds(after));
+	}
+
+	/**
+	 * 1 s steps across every leap second, then the same times shuffled
+	 */
+	private static long[] bulkTimes() {
+		long[] epochs = GnssUtils.GPST_LEAP_EPOCHS;
+		long[] times = new long[epochs.length * 20 * 2];
+		int n = 0;
+		for (long epoch : epochs) {
+			for (int k = -10; k < 10; k++) times[n++] = epoch + k * 1000L + 500;
+		}
+		for (int k = 0; k < n; k++) times[n + k] = times[(k * 7919) % n];
+		return times;
+	}
+
+	@Test
+	public void testBulkConversions() {
+		long[] gt = bulkTimes();
+		int n = gt.length;
+		long[] ut = new long[n];
+		long[] rt = new long[n];
+		GnssUtils.gps2unix(gt, 0, ut, 0, n);
+		GnssUtils.unix2gps(ut, 0, rt, 0, n);
+		for (int i = 0; i < n; i++) {
+			assertEquals(GnssUtils.gps2unix(gt[i]), ut[i]);
+			assertEquals(GnssUtils.unix2gps(ut[i]), rt[i]);
+		}
+		GnssUtils.gps2gloms(gt, 0, rt, 0, n);
+		for (int i = 0; i < n; i++) assertEquals(GnssUtils.gps2gloms(gt[i]), rt[i]);
+		GnssUtils.gps2bdt(gt, 1, rt, 0, n - 1);
+		for (int i = 0; i < n - 1; i++) assertEquals(GnssUtils.gps2bdt(gt[i + 1]), rt[i]);
+
+		// in place, direct buffer
+		LongBuffer buf = ByteBuffer.allocateDirect(n * 8).asLongBuffer();
+		buf.put(gt).flip();
+		GnssUtils.gps2unix(buf.duplicate(), buf.duplicate());
+		long[] bt = new long[n];
+		buf.get(bt);
+		assertArrayEquals(ut, bt);
+		LongBuffer src = LongBuffer.wrap(ut, 3, n - 3);
+		LongBuffer dst = LongBuffer.allocate(n);
+		GnssUtils.unix2gps(src, dst);
+		assertEquals(n, src.position());
+		assertEquals(n - 3, dst.position());
+		for (int i = 3; i < n; i++) assertEquals(GnssUtils.unix2gps(ut[i]), dst.get(i - 3));
+	}
+
+	@Test
+	public void testParallelBulkConversions() {
+		int n = 1_000_000;
+		long[] gt = new long[n];
+		long t0 = GnssUtils.GPST_LEAP_EPOCHS[16] - n / 2 * 1000L;
+		for (int i = 0; i < n; i++) gt[i] = t0 + i * 1000L;
+		long[] ut = new long[n];
+		GnssUtils.parallelGps2unix(gt, 0, ut, 0, n);
+		for (int i = 0; i < n; i++) assertEquals(GnssUtils.gps2unix(gt[i]), ut[i]);
+		GnssUtils.parallelUnix2gps(ut, 0, ut, 0, n);
+		// all but the leap second itself, which has the same UNIX time as the next second
+		for (int i = 0; i < n; i++) {
+			if (gt[i] != GnssUtils.GPST_LEAP_EPOCHS[16]) assertEquals(gt[i], ut[i]);
+		}
+	}
+
+	@Test
+	public void testSeparateTime() {
+		long gt = GnssUtils.constructGpsTime(2034, 4 * GnssUtils.MS_IN_DAY + 3723004);
+		long[] expected = {4, 3, 2, 1, 4, 2034};
+		assertArrayEquals(expected, GnssUtils.separateMsSecMinHourDayWeek(gt));
+		long[] dst = new long[8];
+		GnssUtils.separateMsSecMinHourDayWeek(gt, dst, 2);
+		assertArrayEquals(expected, Arrays.copyOfRange(dst, 2, 8));
+		long packed = GnssUtils.packMsSecMinHourDayWeek(gt);
+		assertEquals(4, GnssUtils.packedMs(packed));
+		assertEquals(3, GnssUtils.packedSec(packed));
+		assertEquals(2, GnssUtils.packedMin(packed));
+		assertEquals(1, GnssUtils.packedHour(packed));
+		assertEquals(4, GnssUtils.packedDay(packed));
+		assertEquals(2034, GnssUtils.packedWeek(packed));
+		assertTrue(packed < GnssUtils.packMsSecMinHourDayWeek(gt + 1));
+		double[] dms = new double[4];
+		GnssUtils.deg2dms(55.5125, dms, 1);
+		assertEquals(55, dms[1], 0);
+		assertEquals(30, dms[2], 0);
+		assertEquals(45, dms[3], 1e-9);
+	}
+
+	@Test
+	@SuppressWarnings("deprecation")
+	public void testGloChannels() throws InterruptedException {
+		for (int slot = 0; slot <= 40; slot++) {
+			Integer expected = slot >= 1 && slot <= GnssUtils.gloFreqBands.length ? GnssUtils.gloFreqBands[slot - 1] : null;
+			assertEquals(expected, GnssUtils.gloFreqBand(slot));
+		}
+		assertEquals(Integer.valueOf(10), GnssUtils.gloSatByFreq(-7));
+		assertEquals(Integer.valueOf(26), GnssUtils.gloSatByFreq(-5));
+		assertEquals(null, GnssUtils.gloSatByFreq(7));
+		final GloChannelTable saved = GnssUtils.getGloChannelTable();
+		try {
+			assertTrue(GnssUtils.updateGloChannel(25, 7));
+			assertFalse(GnssUtils.updateGloChannel(25, 7));
+			assertEquals(7, GnssUtils.gloChannel(25));
+			assertEquals(Integer.valueOf(25), GnssUtils.gloSatByFreq(7));
+			assertTrue(GnssUtils.updateGloChannel(25, GloChannelTable.UNKNOWN));
+			assertEquals(GloChannelTable.UNKNOWN, GnssUtils.gloChannel(25));
+			assertEquals(saved, GnssUtils.getGloChannelTable());
+			assertEquals((1 << 1) | (1 << 5), saved.slotMask(-4));
+
+			GnssUtils.setGloChannelTable(GloChannelTable.EMPTY);
+			Thread[] threads = new Thread[4];
+			for (int i = 0; i < threads.length; i++) {
+				final int t = i;
+				threads[i] = new Thread(new Runnable() {
+					@Override
+					public void run() {
+						for (int slot = 1 + t; slot <= 24; slot += threads.length) {
+							GnssUtils.updateGloChannel(slot, saved.channel(slot));
+						}
+					}
+				});
+				threads[i].start();
+			}
+			for (Thread thread : threads) thread.join();
+			for (int slot = 1; slot <= 24; slot++) {
+				assertEquals(saved.channel(slot), GnssUtils.gloChannel(slot));
+			}
+		} finally {
+			GnssUtils.setGloChannelTable(saved);
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package aero.geosystems.gnss;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class GpsTimeNsTest {
+	@Test
+	public void testConversions() {
+		long gt = GnssUtils.constructGpsTime(2034, 4 * GnssUtils.MS_IN_DAY + 3723004);
+		long t = GpsTimeNs.fromGpstime(gt, 5);
+		assertEquals(2034, GpsTimeNs.week(t));
+		assertEquals(4 * GnssUtils.MS_IN_DAY + 3723004, GpsTimeNs.towMs(t));
+		assertEquals(4, GpsTimeNs.dayOfWeek(t));
+		assertEquals(3723004, GpsTimeNs.msOfDay(t));
+		assertEquals(5, GpsTimeNs.subMsNs(t));
+		assertEquals(gt, GpsTimeNs.toGpstime(t));
+		assertEquals(t, GpsTimeNs.fromWeekTow(2034, GpsTimeNs.towNs(t)));
+		assertEquals(t, GpsTimeNs.fromWeekTowSeconds(2034, 349323.004000005));
+		assertEquals("2034:349323.004000005", GpsTimeNs.toString(t));
+		assertEquals(1e-9, GpsTimeNs.secondsBetween(t - 1, t), 1e-18);
+		assertEquals(t + 1500, GpsTimeNs.plusSeconds(t, 1.5e-6));
+		assertEquals(GpsTimeNs.NS_IN_MS - 1, GpsTimeNs.subMsNs(-1));
+		assertEquals(-1, GpsTimeNs.toGpstime(-1));
+		assertEquals(GnssUtils.gps2unix(gt), GpsTimeNs.toUnix(t));
+	}
+
+	@Test
+	public void testNegative() {
+		assertEquals(-1, GpsTimeNs.week(-1));
+		assertEquals(GpsTimeNs.NS_IN_WEEK - 1, GpsTimeNs.towNs(-1));
+		assertEquals(GnssUtils.MS_IN_WEEK - 1, GpsTimeNs.towMs(-1));
+		assertEquals(604799.999999999, GpsTimeNs.towSeconds(-1), 1e-9);
+		assertEquals(6, GpsTimeNs.dayOfWeek(-1));
+		assertEquals(GnssUtils.MS_IN_DAY - 1, GpsTimeNs.msOfDay(-1));
+		assertEquals("-1:604799.999999999", GpsTimeNs.toString(-1));
+		assertEquals("0:0.000000001", GpsTimeNs.toString(1));
+		long t = -3 * GpsTimeNs.NS_IN_WEEK + 12345678901L;
+		assertEquals(-3, GpsTimeNs.week(t));
+		assertEquals(t, GpsTimeNs.fromWeekTow(GpsTimeNs.week(t), GpsTimeNs.towNs(t)));
+		assertEquals("-3:12.345678901", GpsTimeNs.toString(t));
+	}
+}
@@ -0,0 +1,135 @@
+package aero.geosystems.gnss;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class KeplerEphemerisTest {
+	private static final long TOE = GpsTimeNs.fromWeekTowSeconds(2034, 352800);
+
+	static KeplerEphemeris.Elements gpsElements() {
+		KeplerEphemeris.Elements el = new KeplerEphemeris.Elements();
+		el.satId = 5;
+		el.toe = TOE;
+		el.toc = TOE;
+		el.sqrtA = 5153.65;
+		el.e = 0.0123;
+		el.i0 = 0.962;
+		el.omega0 = 1.07;
+		el.omega = 0.51;
+		el.m0 = -2.3;
+		el.deltaN = 4.5e-9;
+		el.iDot = 1.1e-10;
+		el.omegaDot = -8.1e-9;
+		el.cuc = 1.3e-6;
+		el.cus = 8.4e-6;
+		el.crc = 251.2;
+		el.crs = 21.4;
+		el.cic = 1.1e-7;
+		el.cis = -1.3e-7;
+		el.af0 = 1.2e-4;
+		el.af1 = 2.3e-11;
+		el.af2 = 1e-18;
+		return el;
+	}
+
+	private static double norm(double[] v, int off) {
+		return Math.sqrt(v[off] * v[off] + v[off + 1] * v[off + 1] + v[off + 2] * v[off + 2]);
+	}
+
+	/**
+	 * Velocity and clock drift against central differences of position and clock bias
+	 */
+	private static void checkDerivatives(KeplerEphemeris eph, long t) {
+		double[] d = new double[3 * Ephemeris.STRIDE];
+		long h = GpsTimeNs.NS_IN_SECOND / 2;
+		eph.evaluate(new long[]{t - h, t, t + h}, 0, d, 0, 3);
+		int s = Ephemeris.STRIDE;
+		for (int k = 0; k < 3; k++) {
+			assertEquals(d[2 * s + k] - d[k], d[s + Ephemeris.VX + k], 1e-3);
+		}
+		assertEquals(d[2 * s + Ephemeris.CLOCK_BIAS] - d[Ephemeris.CLOCK_BIAS], d[s + Ephemeris.CLOCK_DRIFT], 1e-16);
+	}
+
+	@Test
+	public void testCircularOrbit() {
+		KeplerEphemeris.Elements el = new KeplerEphemeris.Elements();
+		el.satId = 1;
+		el.toe = TOE;
+		el.toc = TOE;
+		el.sqrtA = 5153.65;
+		el.m0 = 0.3;
+		el.omega0 = 1.1;
+		KeplerEphemeris eph = new KeplerEphemeris(el);
+		double a = el.sqrtA * el.sqrtA;
+		double n = Math.sqrt(GnssConstants.MU_M / (a * a * a));
+		double[] d = new double[Ephemeris.STRIDE];
+		for (int dt = -7200; dt <= 7200; dt += 900) {
+			eph.evaluate(TOE + dt * GpsTimeNs.NS_IN_SECOND, d, 0);
+			double lon = el.m0 + n * dt + el.omega0 - GnssConstants.OMEGA_DOT_E * (dt + 352800);
+			assertEquals(a * Math.cos(lon), d[Ephemeris.X], 1e-6);
+			assertEquals(a * Math.sin(lon), d[Ephemeris.Y], 1e-6);
+			assertEquals(0, d[Ephemeris.Z], 1e-6);
+			assertEquals(a * (n - GnssConstants.OMEGA_DOT_E), norm(d, Ephemeris.VX), 1e-6);
+			assertEquals(0, d[Ephemeris.CLOCK_BIAS], 0);
+		}
+	}
+
+	@Test
+	public void testGps() {
+		KeplerEphemeris eph = new KeplerEphemeris(gpsElements());
+		double[] d = new double[Ephemeris.STRIDE];
+		for (int dt = -7200; dt <= 7200; dt += 600) {
+			long t = TOE + dt * GpsTimeNs.NS_IN_SECOND + 123456;
+			eph.evaluate(t, d, 0);
+			double r = norm(d, 0);
+			assertTrue(r > 26560e3 * (1 - 0.0124) && r < 26560e3 * (1 + 0.0124));
+			checkDerivatives(eph, t);
+		}
+		// relativistic correction is at most 2 * sqrt(mu) * e * sqrtA / c^2
+		eph.evaluate(TOE, d, 0);
+		assertEquals(1.2e-4, d[Ephemeris.CLOCK_BIAS], 2 * Math.sqrt(GnssConstants.MU_M) * 0.0123 * 5153.65 / 8.98755e16);
+	}
+
+	@Test
+	public void testBatch() {
+		KeplerEphemeris.Elements el = gpsElements();
+		KeplerEphemeris[] ephs = new KeplerEphemeris[3];
+		for (int k = 0; k < ephs.length; k++) {
+			el.satId = 1 + k;
+			el.m0 += 1;
+			ephs[k] = new KeplerEphemeris(el);
+		}
+		long[] times = {TOE, TOE + 1000, TOE - 60 * GpsTimeNs.NS_IN_SECOND};
+		double[] batch = new double[1 + 3 * Ephemeris.STRIDE];
+		double[] one = new double[Ephemeris.STRIDE];
+		KeplerEphemeris.evaluate(ephs, times, 0, batch, 1, 3);
+		for (int k = 0; k < 3; k++) {
+			ephs[k].evaluate(times[k], one, 0);
+			for (int j = 0; j < Ephemeris.STRIDE; j++) assertEquals(one[j], batch[1 + k * Ephemeris.STRIDE + j], 0);
+		}
+		KeplerEphemeris.evaluate(ephs, 1, TOE, batch, 0, 2);
+		ephs[2].evaluate(TOE, one, 0);
+		for (int j = 0; j < Ephemeris.STRIDE; j++) assertEquals(one[j], batch[Ephemeris.STRIDE + j], 0);
+	}
+
+	@Test
+	public void testBdsGeo() {
+		KeplerEphemeris.Elements el = gpsElements();
+		el.satId = SatSystem.BDS.rinexNumberToId(3);
+		el.sqrtA = 6493.44;
+		el.e = 4e-4;
+		el.i0 = Math.toRadians(5);
+		el.omegaDot = 1e-9;
+		KeplerEphemeris eph = new KeplerEphemeris(el);
+		double[] d = new double[Ephemeris.STRIDE];
+		for (int dt = -3600; dt <= 3600; dt += 600) {
+			long t = TOE + dt * GpsTimeNs.NS_IN_SECOND;
+			eph.evaluate(t, d, 0);
+			assertEquals(42164e3, norm(d, 0), 42164e3 * 5e-4);
+			assertTrue(norm(d, Ephemeris.VX) < 400);
+			checkDerivatives(eph, t);
+		}
+	}
+}
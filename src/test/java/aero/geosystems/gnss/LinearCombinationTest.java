@@ -0,0 +1,132 @@
+package aero.geosystems.gnss;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class LinearCombinationTest {
+	@Test
+	public void testCoefficients() {
+		LinearCombination lc = LinearCombination.of(RawSignal.GPS_L1_CA, RawSignal.GPS_L2_PY_W);
+		assertEquals(2.545727780, lc.ifCoef1, 1e-9);
+		assertEquals(-1.545727780, lc.ifCoef2, 1e-9);
+		assertEquals(0.861918400, lc.wideLaneWavelength, 1e-9);
+		assertEquals(0.106953378, lc.narrowLaneWavelength, 1e-9);
+		assertSame(lc, LinearCombination.of(RawSignal.GPS_L1_CA, RawSignal.GPS_L2_PY_W, 5));
+		LinearCombination glo = LinearCombination.of(RawSignal.GLO_L1_CA, RawSignal.GLO_L2_CA, -7);
+		assertEquals(RawSignal.GLO_L1_CA.frequency(-7), glo.frequency1, 0);
+		assertEquals(GnssConstants.gloWaveL2(-7), glo.wavelength2, 0);
+		assertSame(glo, LinearCombination.of(RawSignal.GLO_L1_CA, RawSignal.GLO_L2_CA, -7));
+		assertSame(LinearCombination.of(RawSignal.GLO_L1_CA, RawSignal.GLO_L2_CA, 7),
+				LinearCombination.of(RawSignal.GLO_L1_CA, RawSignal.GLO_L2_CA, 7));
+		assertEquals(9, LinearCombination.of(RawSignal.GLO_L1_CA, RawSignal.GLO_L2_CA, 9).channel);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSameFrequency() {
+		LinearCombination.of(RawSignal.GPS_L1_CA, RawSignal.GAL_E1C);
+	}
+
+	@Test
+	public void testCombinations() {
+		LinearCombination lc = LinearCombination.of(RawSignal.GLO_L1_CA, RawSignal.GLO_L2_P, 3);
+		// geometry rho, ionospheric delay I on L1, ambiguities N1, N2
+		double rho = 2.1e7, iono = 5.3, n1 = 123, n2 = -45;
+		double i2 = iono * lc.frequency1 * lc.frequency1 / (lc.frequency2 * lc.frequency2);
+		double p1 = rho + iono, p2 = rho + i2;
+		double l1 = (rho - iono) / lc.wavelength1 + n1, l2 = (rho - i2) / lc.wavelength2 + n2;
+		assertEquals(rho, lc.ionosphereFree(p1, p2), 1e-6);
+		assertEquals(rho + lc.ionosphereFree(n1 * lc.wavelength1, n2 * lc.wavelength2), lc.ionosphereFreePhase(l1, l2), 1e-6);
+		assertEquals(i2 - iono, lc.geometryFreeCode(p1, p2), 1e-6);
+		assertEquals(i2 - iono + n1 * lc.wavelength1 - n2 * lc.wavelength2, lc.geometryFreePhase(l1, l2), 1e-6);
+		assertEquals(n1 - n2, lc.melbourneWubbena(l1, l2, p1, p2), 1e-6);
+		assertEquals(lc.wideLanePhase(l1, l2) - lc.narrowLaneCode(p1, p2),
+				lc.melbourneWubbena(l1, l2, p1, p2) * lc.wideLaneWavelength, 1e-6);
+	}
+
+	@Test
+	public void testBulk() {
+		LinearCombination lc = LinearCombination.of(RawSignal.GAL_E1C, RawSignal.GAL_E5a_Q);
+		Random rnd = new Random(2);
+		int n = 37;
+		double[] l1 = new double[n], l2 = new double[n], p1 = new double[n], p2 = new double[n], dst = new double[n];
+		for (int i = 0; i < n; i++) {
+			p1[i] = 2e7 + rnd.nextDouble() * 1e6;
+			p2[i] = p1[i] + rnd.nextDouble();
+			l1[i] = p1[i] / lc.wavelength1 + rnd.nextInt(1000);
+			l2[i] = p2[i] / lc.wavelength2 + rnd.nextInt(1000);
+		}
+		l1[5] = Double.NaN;
+		lc.ionosphereFree(p1, p2, dst, 1, n - 2);
+		assertEquals(0, dst[0], 0);
+		assertEquals(0, dst[n - 1], 0);
+		for (int i = 1; i < n - 1; i++) assertEquals(lc.ionosphereFree(p1[i], p2[i]), dst[i], 0);
+		lc.ionosphereFreePhase(l1, l2, dst, 0, n);
+		for (int i = 0; i < n; i++) assertEquals(lc.ionosphereFreePhase(l1[i], l2[i]), dst[i], 0);
+		assertTrue(Double.isNaN(dst[5]));
+		lc.geometryFreePhase(l1, l2, dst, 0, n);
+		for (int i = 0; i < n; i++) assertEquals(lc.geometryFreePhase(l1[i], l2[i]), dst[i], 0);
+		lc.geometryFreeCode(p1, p2, dst, 0, n);
+		for (int i = 0; i < n; i++) assertEquals(lc.geometryFreeCode(p1[i], p2[i]), dst[i], 0);
+		lc.wideLanePhase(l1, l2, dst, 0, n);
+		for (int i = 0; i < n; i++) assertEquals(lc.wideLanePhase(l1[i], l2[i]), dst[i], 1e-6);
+		lc.narrowLaneCode(p1, p2, dst, 0, n);
+		for (int i = 0; i < n; i++) assertEquals(lc.narrowLaneCode(p1[i], p2[i]), dst[i], 0);
+		lc.melbourneWubbena(l1, l2, p1, p2, dst, 0, n);
+		for (int i = 0; i < n; i++) assertEquals(lc.melbourneWubbena(l1[i], l2[i], p1[i], p2[i]), dst[i], 1e-6);
+	}
+
+	@Test
+	public void testBulkChannels() {
+		// GLONASS satellites of columns by global satellite index, each on its own channel
+		RawSignal s1 = RawSignal.GLO_L1_CA, s2 = RawSignal.GLO_L2_P;
+		int n = SatSystem.totalNumIds;
+		int first = SatSystem.GLONASS.firstGlobalIndex(), count = SatSystem.GLONASS.numIds;
+		Random rnd = new Random(5);
+		double[] l1 = new double[n], l2 = new double[n], p1 = new double[n], p2 = new double[n], dst = new double[n];
+		byte[] channels = new byte[n];
+		for (int i = first; i < first + count; i++) {
+			channels[i] = (byte) (rnd.nextInt(15) - 7);
+			LinearCombination lc = LinearCombination.of(s1, s2, channels[i]);
+			p1[i] = 2e7 + rnd.nextDouble() * 1e6;
+			p2[i] = p1[i] + rnd.nextDouble();
+			l1[i] = p1[i] / lc.wavelength1 + rnd.nextInt(1000);
+			l2[i] = p2[i] / lc.wavelength2 + rnd.nextInt(1000);
+		}
+		l2[first + 3] = Double.NaN;
+		LinearCombination.ionosphereFree(s1, s2, channels, p1, p2, dst, first, count);
+		for (int i = first; i < first + count; i++) {
+			assertEquals(LinearCombination.of(s1, s2, channels[i]).ionosphereFree(p1[i], p2[i]), dst[i], 0);
+		}
+		LinearCombination.ionosphereFreePhase(s1, s2, channels, l1, l2, dst, first, count);
+		for (int i = first; i < first + count; i++) {
+			assertEquals(LinearCombination.of(s1, s2, channels[i]).ionosphereFreePhase(l1[i], l2[i]), dst[i], 0);
+		}
+		assertTrue(Double.isNaN(dst[first + 3]));
+		LinearCombination.geometryFreePhase(s1, s2, channels, l1, l2, dst, first, count);
+		for (int i = first; i < first + count; i++) {
+			assertEquals(LinearCombination.of(s1, s2, channels[i]).geometryFreePhase(l1[i], l2[i]), dst[i], 0);
+		}
+		LinearCombination.wideLanePhase(s1, s2, channels, l1, l2, dst, first, count);
+		for (int i = first; i < first + count; i++) {
+			assertEquals(LinearCombination.of(s1, s2, channels[i]).wideLanePhase(l1[i], l2[i]), dst[i], 0);
+		}
+		LinearCombination.narrowLaneCode(s1, s2, channels, p1, p2, dst, first, count);
+		for (int i = first; i < first + count; i++) {
+			assertEquals(LinearCombination.of(s1, s2, channels[i]).narrowLaneCode(p1[i], p2[i]), dst[i], 0);
+		}
+		LinearCombination.melbourneWubbena(s1, s2, channels, l1, l2, p1, p2, dst, first, count);
+		for (int i = first; i < first + count; i++) {
+			assertEquals(LinearCombination.of(s1, s2, channels[i]).melbourneWubbena(l1[i], l2[i], p1[i], p2[i]),
+					dst[i], 1e-6);
+		}
+		// channels are ignored for CDMA signals
+		LinearCombination gps = LinearCombination.of(RawSignal.GPS_L1_CA, RawSignal.GPS_L2_PY_W);
+		LinearCombination.ionosphereFree(RawSignal.GPS_L1_CA, RawSignal.GPS_L2_PY_W, channels, p1, p2, dst, first, count);
+		for (int i = first; i < first + count; i++) assertEquals(gps.ionosphereFree(p1[i], p2[i]), dst[i], 0);
+	}
+}
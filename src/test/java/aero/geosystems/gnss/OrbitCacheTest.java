@@ -0,0 +1,175 @@
+package aero.geosystems.gnss;
+
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class OrbitCacheTest {
+	private static final long TOE = GpsTimeNs.fromWeekTowSeconds(2034, 352800);
+
+	private static EphemerisStore store() {
+		EphemerisStore store = new EphemerisStore();
+		KeplerEphemeris.Elements el = KeplerEphemerisTest.gpsElements();
+		el.toe = TOE;
+		el.toc = TOE;
+		store.put(new KeplerEphemeris(el));
+		GlonassEphemeris.Elements gl = GlonassEphemerisTest.elements(3);
+		gl.tb = TOE;
+		store.put(new GlonassEphemeris(gl));
+		return store;
+	}
+
+	private static void assertState(double[] expected, double[] actual) {
+		for (int k = 0; k < 3; k++) {
+			assertEquals(expected[Ephemeris.X + k], actual[Ephemeris.X + k], 1e-3);
+			assertEquals(expected[Ephemeris.VX + k], actual[Ephemeris.VX + k], 1e-5);
+		}
+		assertEquals(expected[Ephemeris.CLOCK_BIAS], actual[Ephemeris.CLOCK_BIAS], 1e-15);
+		assertEquals(expected[Ephemeris.CLOCK_DRIFT], actual[Ephemeris.CLOCK_DRIFT], 1e-15);
+	}
+
+	@Test
+	public void testAccuracy() {
+		EphemerisStore store = store();
+		OrbitCache cache = new OrbitCache(store);
+		double[] expected = new double[Ephemeris.STRIDE];
+		double[] actual = new double[Ephemeris.STRIDE];
+		for (int id : new int[]{5, SatSystem.GLONASS.rinexNumberToId(3)}) {
+			int sat = SatSystem.globalIndex(id);
+			for (long t = TOE - 900 * GpsTimeNs.NS_IN_SECOND; t < TOE + 900 * GpsTimeNs.NS_IN_SECOND; t += 7777777777L) {
+				assertTrue(cache.evaluate(sat, t, actual, 0));
+				store.get(sat, t).evaluate(t, expected, 0);
+				assertState(expected, actual);
+			}
+		}
+		assertFalse(cache.evaluate(SatSystem.globalIndex(6), TOE, actual, 0));
+		assertFalse(cache.evaluate(SatSystem.globalIndex(5), TOE + 3 * GnssUtils.MS_IN_HOUR * GpsTimeNs.NS_IN_MS, actual, 0));
+	}
+
+	@Test
+	public void testTransmission() {
+		OrbitCache cache = new OrbitCache(store());
+		int sat = SatSystem.globalIndex(5);
+		double[] d = new double[Ephemeris.STRIDE];
+		// receiver on the ground under the satellite
+		cache.evaluate(sat, TOE, d, 0);
+		double k = 6.37e6 / Math.sqrt(d[0] * d[0] + d[1] * d[1] + d[2] * d[2]);
+		double rx = k * d[0], ry = k * d[1], rz = k * d[2];
+		double tau = cache.evaluateAtTransmission(sat, TOE, rx, ry, rz, d, 0);
+		assertEquals((26.56e6 - 6.37e6) / GnssConstants.C, tau, 0.002);
+		// rotate back and compare with position at transmission time
+		double[] tx = new double[Ephemeris.STRIDE];
+		cache.evaluate(sat, TOE - Math.round(tau * GpsTimeNs.NS_IN_SECOND), tx, 0);
+		double a = GnssConstants.OMEGA_DOT_E * tau;
+		assertEquals(Math.cos(a) * tx[0] + Math.sin(a) * tx[1], d[0], 1e-3);
+		assertEquals(-Math.sin(a) * tx[0] + Math.cos(a) * tx[1], d[1], 1e-3);
+		assertEquals(tx[2], d[2], 0);
+		double range = Math.sqrt((tx[0] - rx) * (tx[0] - rx) + (tx[1] - ry) * (tx[1] - ry) + (tx[2] - rz) * (tx[2] - rz));
+		assertEquals(range / GnssConstants.C, tau, 1e-11);
+	}
+
+	@Test
+	public void testLaggingCaller() {
+		final EphemerisStore store = store();
+		final int[] fits = new int[1];
+		OrbitCache cache = new OrbitCache(new EphemerisSource() {
+			@Override
+			public Ephemeris get(int sat, long t) {
+				fits[0]++;
+				return store.get(sat, t);
+			}
+		});
+		int sat = SatSystem.globalIndex(5);
+		double[] d = new double[Ephemeris.STRIDE];
+		long t = TOE + 100 * GpsTimeNs.NS_IN_SECOND;
+		long old = t - OrbitCache.RING * OrbitCache.DEFAULT_WINDOW;
+		assertTrue(cache.evaluate(sat, t, d, 0));
+		assertEquals(1, fits[0]);
+		// older window in the same slot is fitted, but does not evict the newer one
+		assertTrue(cache.evaluate(sat, old, d, 0));
+		assertTrue(cache.evaluate(sat, old, d, 0));
+		assertEquals(3, fits[0]);
+		assertTrue(cache.evaluate(sat, t, d, 0));
+		assertEquals(3, fits[0]);
+	}
+
+	@Test
+	public void testNotFinite() {
+		final EphemerisStore store = store();
+		final long gap = TOE + 1000 * GpsTimeNs.NS_IN_SECOND;
+		// position is NaN after gap, clock is always NaN
+		OrbitCache cache = new OrbitCache(new EphemerisSource() {
+			@Override
+			public Ephemeris get(int sat, long t) {
+				final Ephemeris eph = store.get(sat, t);
+				return eph == null ? null : new Ephemeris() {
+					@Override
+					public int getSatId() {
+						return eph.getSatId();
+					}
+
+					@Override
+					public long getToe() {
+						return eph.getToe();
+					}
+
+					@Override
+					public void evaluate(long t, double[] dst, int off) {
+						eph.evaluate(t, dst, off);
+						if (t >= gap) dst[off + Ephemeris.X] = Double.NaN;
+						dst[off + Ephemeris.CLOCK_BIAS] = Double.NaN;
+					}
+				};
+			}
+		});
+		int sat = SatSystem.globalIndex(5);
+		double[] d = new double[Ephemeris.STRIDE];
+		assertTrue(cache.evaluate(sat, TOE, d, 0));
+		assertFalse(Double.isNaN(d[Ephemeris.X]));
+		assertTrue(Double.isNaN(d[Ephemeris.CLOCK_BIAS]));
+		// window of TOE + 900 s..1800 s has nodes after gap
+		assertFalse(cache.evaluate(sat, gap, d, 0));
+		assertFalse(cache.evaluate(sat, gap - 10 * GpsTimeNs.NS_IN_SECOND, d, 0));
+	}
+
+	@Test
+	public void testConcurrent() throws InterruptedException {
+		final EphemerisStore store = store();
+		ExecutorService background = Executors.newSingleThreadExecutor();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		final OrbitCache cache = new OrbitCache(store, background, 5 * 60 * GpsTimeNs.NS_IN_SECOND, 10);
+		final int sat = SatSystem.globalIndex(5);
+		final boolean[] failed = new boolean[1];
+		for (int k = 0; k < 8; k++) {
+			final int station = k;
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						double[] expected = new double[Ephemeris.STRIDE];
+						double[] actual = new double[Ephemeris.STRIDE];
+						for (int s = 0; s < 1800; s += 3) {
+							long t = TOE + (s + station) * GpsTimeNs.NS_IN_SECOND;
+							store.get(sat, t).evaluate(t, expected, 0);
+							if (!cache.evaluate(sat, t, actual, 0) || Math.abs(expected[0] - actual[0]) > 1e-3) {
+								failed[0] = true;
+							}
+						}
+					} catch (RuntimeException e) {
+						failed[0] = true;
+					}
+				}
+			});
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+		background.shutdown();
+		assertFalse(failed[0]);
+	}
+}
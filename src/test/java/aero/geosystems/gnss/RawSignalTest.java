@@ -0,0 +1,52 @@
+package aero.geosystems.gnss;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class RawSignalTest {
+	@Test
+	public void testByCode() {
+		for (RawSignal signal : RawSignal.values()) {
+			RawSignal canonical = signal.canonical();
+			assertSame(canonical, RawSignal.byCode(signal.gnss, signal.band, signal.attr));
+			assertSame(canonical, RawSignal.byRinexCode(signal.gnss, signal.rinexCode('L')));
+			assertSame(canonical, RawSignal.byRinexCode(signal.gnss, "G01 " + signal.rinexCode('C'), 4));
+			assertEquals(signal.gnss, canonical.gnss);
+			assertEquals(signal.band, canonical.band);
+			assertEquals(signal.attr, canonical.attr);
+			assertSame(canonical, canonical.canonical());
+			assertSame(signal.rinexCode('S'), signal.rinexCode('S'));
+		}
+		assertSame(RawSignal.GPS_L1_CA, RawSignal.byRinexCode(SatSystem.GPS, "C1C"));
+		assertSame(RawSignal.GPS_L2_PY_W, RawSignal.byRinexCode(SatSystem.GPS, "L2W"));
+		assertSame(RawSignal.GPS_L2_PY_W, RawSignal.GPS_L2_PY_CORRELATED.canonical());
+		assertSame(RawSignal.BDS_B1_I, RawSignal.BDS_B1_I_D2.canonical());
+		assertSame(RawSignal.SBAS_L1CA, RawSignal.OmniSTAR.canonical());
+		assertEquals("D5X", RawSignal.GAL_E5a_IQ.rinexCode('D'));
+		assertNull(RawSignal.byRinexCode(SatSystem.GPS, "X1C"));
+		assertNull(RawSignal.byRinexCode(SatSystem.GPS, "C9C"));
+		assertNull(RawSignal.byRinexCode(SatSystem.GPS, "C1c"));
+		assertNull(RawSignal.byRinexCode(SatSystem.GPS, "C1"));
+		assertNull(RawSignal.byRinexCode(SatSystem.GPS, "C1C", 1));
+	}
+
+	@Test
+	public void testWavelength() {
+		for (RawSignal signal : RawSignal.values()) {
+			for (int k = -9; k <= 9; k++) {
+				double f = signal.frequency + k * signal.frequencyStep;
+				assertEquals(f, signal.frequency(k), 0);
+				assertEquals(GnssConstants.C / f, signal.wavelength(k), 0);
+				assertEquals(1, signal.wavelength(k) * signal.inverseWavelength(k), 1e-15);
+			}
+		}
+		for (int k = -8; k <= 8; k++) {
+			assertEquals(RawSignal.GLO_L1_CA.wavelength(k), GnssConstants.gloWaveL1(k), 0);
+			assertEquals(RawSignal.GLO_L2_P.wavelength(k), GnssConstants.gloWaveL2(k), 0);
+		}
+		assertEquals(GnssConstants.GPS_L1_WAVELENGTH, RawSignal.GPS_L1_CA.wavelength(3), 0);
+	}
+}
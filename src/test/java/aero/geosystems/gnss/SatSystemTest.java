@@ -0,0 +1,141 @@
+package aero.geosystems.gnss;
+
+import org.junit.Test;
+
+import java.text.ParseException;
+import java.util.EnumSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SatSystemTest {
+	@Test
+	public void testById() {
+		for (int id = -300; id < 300; id++) {
+			SatSystem expected = null;
+			if (id >= 0) {
+				for (SatSystem system : SatSystem.values()) {
+					if (system.hasId(id)) {
+						expected = system;
+						break;
+					}
+				}
+			}
+			assertSame("" + id, expected, SatSystem.byId(id));
+			assertEquals("" + id, expected != null, SatSystem.isValidId((short) id));
+		}
+		assertSame(SatSystem.GPS, SatSystem.byId(1));
+		assertSame(SatSystem.GLONASS, SatSystem.byId(62));
+		assertSame(SatSystem.SBAS, SatSystem.byId(120));
+		assertNull(SatSystem.byId(63));
+	}
+
+	@Test
+	public void testByCharCode() {
+		for (SatSystem system : SatSystem.values()) {
+			assertSame(system, SatSystem.byCharCode(system.charCode));
+		}
+		assertNull(SatSystem.byCharCode('X'));
+		assertNull(SatSystem.byCharCode('Г'));
+	}
+
+	@Test
+	public void testGlobalIndex() {
+		int n = 0;
+		for (SatSystem system : SatSystem.values()) {
+			assertEquals(n, system.firstGlobalIndex());
+			for (int i = 1; i <= system.numIds; i++) {
+				int id = system.indexToId(i);
+				assertEquals(n, SatSystem.globalIndex(id));
+				assertEquals(id, SatSystem.globalIndexToId(n));
+				assertSame(system, SatSystem.byGlobalIndex(n));
+				n++;
+			}
+		}
+		assertEquals(SatSystem.totalNumIds, n);
+		assertEquals(-1, SatSystem.globalIndex(0));
+		assertEquals(-1, SatSystem.globalIndex(-1));
+		assertEquals(-1, SatSystem.globalIndex(SatSystem.totalMaxId + 1));
+	}
+
+	@Test
+	public void testSatMaps() {
+		SatDoubleMap dm = new SatDoubleMap();
+		SatLongMap lm = new SatLongMap();
+		SatObjectMap<String> om = new SatObjectMap<String>();
+		for (int index = 0; index < SatSystem.totalNumIds; index += 3) {
+			dm.put(index, index * 0.5);
+			lm.increment(index, index);
+			lm.increment(index, 1);
+			om.put(index, "s" + index);
+		}
+		int n = (SatSystem.totalNumIds + 2) / 3;
+		assertEquals(n, dm.size());
+		assertTrue(dm.remove(3));
+		assertFalse(dm.remove(3));
+		assertFalse(dm.remove(4));
+		assertEquals("s3", om.remove(3));
+		assertEquals(n - 1, dm.size());
+		assertEquals(Double.NaN, dm.get(3, Double.NaN), 0);
+		assertEquals(3.0, dm.get(6, Double.NaN), 0);
+		assertEquals(7, lm.get(6, -1));
+		assertEquals(-1, lm.get(7, -1));
+		assertNull(om.get(3));
+		double sum = 0;
+		for (int i = 0; i < dm.size(); i++) {
+			assertEquals(dm.keyAt(i) * 0.5, dm.valueAt(i), 0);
+			assertEquals("s" + om.keyAt(i), om.get(om.keyAt(i)));
+			sum += dm.valueAt(i);
+		}
+		assertEquals(0.5 * 3 * ((long) n * (n - 1) / 2 - 1), sum, 1e-9);
+		dm.clear();
+		om.clear();
+		assertTrue(dm.isEmpty());
+		assertFalse(dm.containsKey(6));
+		assertNull(om.get(6));
+		dm.put(6, 1);
+		assertEquals(1, dm.size());
+		assertEquals(6, dm.keyAt(0));
+	}
+
+	@Test
+	public void testSatSet() throws ParseException {
+		SatSet rover = SatSet.parse("G01 G05 R12 E07, S20 J01 C35");
+		assertEquals("G01 G05 R12 E07 S20 J01 C35", rover.toString());
+		assertEquals(7, rover.size());
+		assertTrue(rover.containsId(1));
+		assertTrue(rover.containsId(120));
+		assertTrue(rover.containsId(193));
+		assertFalse(rover.containsId(2));
+		SatSet base = SatSet.parse("G1 G02 R12 C35");
+		assertEquals("G01 R12 C35", new SatSet(rover).and(base).toString());
+		assertEquals("G01 G02 G05 R12 E07 S20 J01 C35", new SatSet(rover).or(base).toString());
+		assertEquals("G05 E07 S20 J01", new SatSet(rover).andNot(base).toString());
+		assertEquals(2, rover.size(SatSystem.GPS));
+		assertEquals("R12", new SatSet(rover).retainAll(SatSystem.GLONASS).toString());
+		assertEquals(5, new SatSet(rover).removeAll(SatSystem.GPS).size());
+		assertEquals(SatSystem.totalNumIds, SatSet.of(EnumSet.allOf(SatSystem.class)).size());
+		assertEquals(SatSystem.BDS.numIds, SatSet.of(SatSystem.BDS).size());
+		assertEquals(SatSet.parse("G01 C35 R12"), base.remove(SatSystem.globalIndex(2)));
+		assertTrue(base.intersects(rover));
+		assertFalse(new SatSet().intersects(rover));
+		assertTrue(new SatSet().isEmpty());
+		int n = 0;
+		for (int index = rover.nextIndex(0); index >= 0; index = rover.nextIndex(index + 1)) {
+			assertTrue(rover.contains(index));
+			n++;
+		}
+		assertEquals(7, n);
+		for (String bad : new String[]{"G00", "X01", "G", "R26", "G01x", "S19", "G123456"}) {
+			try {
+				SatSet.parse(bad);
+				fail(bad);
+			} catch (ParseException ignored) {
+			}
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package aero.geosystems.gnss;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SignalKeyTest {
+	@Test
+	public void testPacking() {
+		int key = SignalKey.of(SatSystem.GLONASS.rinexNumberToId(12), RawSignal.GLO_L1_CA, -7);
+		assertSame(SatSystem.GLONASS, SignalKey.system(key));
+		assertEquals(12, SignalKey.rinexNumber(key));
+		assertSame(RawSignal.GLO_L1_CA, SignalKey.signal(key));
+		assertEquals(-7, SignalKey.channel(key));
+		assertEquals("R12 GLO_L1_CA k=-7", SignalKey.toString(key));
+		int l2 = SignalKey.withSignal(key, RawSignal.GLO_L2_P);
+		assertSame(RawSignal.GLO_L2_P, SignalKey.signal(l2));
+		assertEquals(-7, SignalKey.channel(l2));
+		assertEquals("S20 SBAS_L1CA", SignalKey.toString(SignalKey.of(120, RawSignal.SBAS_L1CA)));
+		for (int id = 1; id <= SatSystem.totalMaxId; id++) {
+			if (!SatSystem.isValidId((short) id)) continue;
+			for (RawSignal signal : RawSignal.values()) {
+				for (int k = -8; k <= 8; k += 4) {
+					int sk = SignalKey.of(id, signal, k);
+					assertTrue(sk > 0);
+					assertEquals(id, SignalKey.id(sk));
+					assertSame(signal, SignalKey.signal(sk));
+					assertEquals(k, SignalKey.channel(sk));
+				}
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidId() {
+		SignalKey.of(63, RawSignal.GPS_L1_CA);
+	}
+
+	@Test
+	public void testTables() {
+		Random rnd = new Random(1);
+		Map<Integer, Double> expected = new HashMap<Integer, Double>();
+		SignalKeyDoubleMap map = new SignalKeyDoubleMap(4);
+		SignalKeyObjectMap<Double> omap = new SignalKeyObjectMap<Double>();
+		SignalKeySet set = new SignalKeySet();
+		RawSignal[] signals = RawSignal.values();
+		for (int n = 0; n < 20000; n++) {
+			int key = SignalKey.of(1 + rnd.nextInt(32), signals[rnd.nextInt(12)], rnd.nextInt(3) - 1);
+			if (rnd.nextInt(3) == 0) {
+				Double prev = expected.remove(key);
+				assertEquals(prev != null, map.remove(key));
+				assertEquals(prev != null, set.remove(key));
+				assertEquals(prev, omap.remove(key));
+			} else {
+				double v = rnd.nextDouble();
+				Double prev = expected.put(key, v);
+				map.put(key, v);
+				assertEquals(prev == null, set.add(key));
+				assertEquals(prev, omap.put(key, v));
+			}
+			assertEquals(expected.size(), map.size());
+			assertEquals(expected.size(), set.size());
+		}
+		for (Map.Entry<Integer, Double> e : expected.entrySet()) {
+			assertEquals(e.getValue(), map.get(e.getKey(), Double.NaN), 0);
+			assertEquals(e.getValue(), omap.get(e.getKey()));
+			assertTrue(set.contains(e.getKey()));
+		}
+		int n = 0;
+		for (int slot = map.nextSlot(0); slot >= 0; slot = map.nextSlot(slot + 1)) {
+			assertEquals(expected.get(map.keyAt(slot)), map.valueAt(slot), 0);
+			n++;
+		}
+		assertEquals(expected.size(), n);
+		int key = SignalKey.of(5, RawSignal.GPS_L5_Q);
+		map.clear();
+		assertTrue(map.isEmpty());
+		assertEquals(-1, map.nextSlot(0));
+		assertEquals(2.5, map.add(key, 2.5), 0);
+		assertEquals(3.0, map.add(key, 0.5), 0);
+		omap.clear();
+		assertNull(omap.get(key));
+		assertFalse(set.contains(SignalKey.of(33, RawSignal.GPS_L1_CA)));
+	}
+}
@@ -0,0 +1,180 @@
+package aero.geosystems.gnss;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.Locale;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class Sp3FileTest {
+	private static final long START = GpsTimeNs.fromWeekTowSeconds(2034, 345600);
+	private static final long INTERVAL = 900 * GpsTimeNs.NS_IN_SECOND;
+	private static final int EPOCHS = 24;
+
+	/**
+	 * SP3 file with G05 from {@link KeplerEphemerisTest#gpsElements()} and R03 from
+	 * {@link GlonassEphemerisTest#elements}, toe in the middle
+	 */
+	private static String sp3(String timeSystem, long shiftMs) {
+		KeplerEphemeris.Elements el = KeplerEphemerisTest.gpsElements();
+		el.toe = el.toc = START + EPOCHS / 2 * INTERVAL;
+		GlonassEphemeris.Elements gl = GlonassEphemerisTest.elements(3);
+		gl.tb = START + EPOCHS / 2 * INTERVAL;
+		Ephemeris[] ephemerides = {new KeplerEphemeris(el), new GlonassEphemeris(gl)};
+		StringBuilder sb = new StringBuilder();
+		Datetime dt = new Datetime(GnssUtils.GPS_UNIX_DIFF + GpsTimeNs.toGpstime(START) + shiftMs);
+		sb.append(String.format(Locale.ROOT, "#dP%4d %2d %2d %2d %2d %11.8f %7d ORBIT IGS14 HLM  TEST\n",
+				dt.get(Datetime.YEAR), dt.get(Datetime.MONTH), dt.get(Datetime.DAY_OF_MONTH), 0, 0, 0.0, EPOCHS));
+		sb.append("## 2034 345600.00000000   900.00000000 58818 0.0000000000000\n");
+		sb.append("+    2   G05R03  0  0  0  0  0  0  0  0  0  0  0  0  0  0  0\n");
+		sb.append("++         0  0  0  0  0  0  0  0  0  0  0  0  0  0  0  0  0\n");
+		sb.append("%c M  cc ").append(timeSystem).append(" ccc cccc cccc cccc cccc ccccc ccccc ccccc ccccc\n");
+		sb.append("/* test\r\n");
+		double[] d = new double[Ephemeris.STRIDE];
+		for (int i = 0; i < EPOCHS; i++) {
+			long t = START + i * INTERVAL;
+			long cal = GnssUtils.GPS_UNIX_DIFF + GpsTimeNs.toGpstime(t) + shiftMs;
+			dt = new Datetime(cal);
+			sb.append(String.format(Locale.ROOT, "*  %4d %2d %2d %2d %2d %11.8f\n", dt.get(Datetime.YEAR),
+					dt.get(Datetime.MONTH), dt.get(Datetime.DAY_OF_MONTH), dt.get(Datetime.HOUR_OF_DAY),
+					dt.get(Datetime.MINUTE), dt.get(Datetime.SECOND) + dt.get(Datetime.MILLISECOND) / 1e3));
+			for (int k = 0; k < ephemerides.length; k++) {
+				ephemerides[k].evaluate(t, d, 0);
+				sb.append(String.format(Locale.ROOT, "P%s%14.6f%14.6f%14.6f%14.6f\n", k == 0 ? "G05" : "R03",
+						d[Ephemeris.X] / 1e3, d[Ephemeris.Y] / 1e3, d[Ephemeris.Z] / 1e3,
+						i == 3 && k == 0 ? 999999.999999 : d[Ephemeris.CLOCK_BIAS] * 1e6));
+			}
+		}
+		sb.append("EOF\n");
+		return sb.toString();
+	}
+
+	private static Sp3File parse(String s) throws ParseException {
+		return Sp3File.parse(ByteBuffer.wrap(s.getBytes(StandardCharsets.US_ASCII)));
+	}
+
+	@Test
+	public void testRead() throws IOException, ParseException {
+		File file = File.createTempFile("test", ".sp3");
+		try {
+			try (OutputStream out = new FileOutputStream(file)) {
+				out.write(sp3("GPS", 0).getBytes(StandardCharsets.US_ASCII));
+			}
+			Sp3File sp3 = Sp3File.read(file);
+			assertEquals('d', sp3.getVersion());
+			assertEquals("GPS", sp3.getTimeSystem());
+			assertEquals(START, sp3.getStart());
+			assertEquals(INTERVAL, sp3.getInterval());
+			assertEquals(EPOCHS, sp3.getEpochCount());
+			assertEquals(START + 5 * INTERVAL, sp3.epochTime(5));
+			assertEquals("G05 R03", sp3.getSatellites().toString());
+			int sat = SatSystem.globalIndex(5);
+			assertTrue(Double.isNaN(sp3.column(sat, 3)[3]));
+			assertFalse(Double.isNaN(sp3.column(sat, 3)[4]));
+			assertNull(sp3.column(SatSystem.globalIndex(6), Ephemeris.X));
+		} finally {
+			assertTrue(file.delete());
+		}
+	}
+
+	@Test
+	public void testTimeSystems() throws ParseException {
+		assertEquals(START, parse(sp3("GAL", 0)).getStart());
+		assertEquals(START, parse(sp3("UTC", -GnssUtils.getLeapSecondTable().leapSeconds(GpsTimeNs.toGpstime(START)) * 1000L)).getStart());
+		assertEquals(START, parse(sp3("TAI", 19000)).getStart());
+		assertEquals(START, parse(sp3("BDT", -14000)).getStart());
+		assertArrayEquals(parse(sp3("GPS", 0)).column(SatSystem.globalIndex(5), Ephemeris.Z),
+				parse(sp3("BDT", -14000)).column(SatSystem.globalIndex(5), Ephemeris.Z), 0);
+	}
+
+	@Test
+	public void testInterpolate() throws ParseException {
+		Sp3File sp3 = parse(sp3("GPS", 0));
+		KeplerEphemeris.Elements el = KeplerEphemerisTest.gpsElements();
+		el.toe = el.toc = START + EPOCHS / 2 * INTERVAL;
+		GlonassEphemeris.Elements gl = GlonassEphemerisTest.elements(3);
+		gl.tb = START + EPOCHS / 2 * INTERVAL;
+		Ephemeris[] ephemerides = {new KeplerEphemeris(el), new GlonassEphemeris(gl)};
+		double[] expected = new double[Ephemeris.STRIDE];
+		double[] actual = new double[Ephemeris.STRIDE];
+		for (Ephemeris eph : ephemerides) {
+			int sat = SatSystem.globalIndex(eph.getSatId());
+			for (long t = START + 5 * INTERVAL; t < START + 19 * INTERVAL; t += 123456789012L) {
+				assertTrue(sp3.interpolate(sat, t, actual, 0));
+				eph.evaluate(t, expected, 0);
+				for (int k = 0; k < 3; k++) {
+					assertEquals(expected[Ephemeris.X + k], actual[Ephemeris.X + k], 0.01);
+					assertEquals(expected[Ephemeris.VX + k], actual[Ephemeris.VX + k], 1e-4);
+				}
+				// broadcast clock has periodic relativistic term, linear interpolation does not follow it
+				assertEquals(expected[Ephemeris.CLOCK_BIAS], actual[Ephemeris.CLOCK_BIAS], 1e-10);
+				sp3.get(sat, t).evaluate(t, expected, 0);
+				assertArrayEquals(actual, expected, 0);
+			}
+		}
+		int sat = SatSystem.globalIndex(5);
+		assertTrue(sp3.interpolate(sat, START, actual, 0));
+		assertTrue(sp3.interpolate(sat, sp3.epochTime(EPOCHS - 1), actual, 0));
+		assertFalse(sp3.interpolate(sat, START - 1, actual, 0));
+		assertFalse(sp3.interpolate(sat, sp3.epochTime(EPOCHS - 1) + 1, actual, 0));
+		assertNull(sp3.get(sat, START - 1));
+		assertTrue(sp3.interpolate(sat, START + 3 * INTERVAL + 1, actual, 0));
+		assertTrue(Double.isNaN(actual[Ephemeris.CLOCK_BIAS]));
+	}
+
+	@Test
+	public void testMissingPositions() throws ParseException {
+		// G05 position of epoch 10 is missing
+		StringBuilder sb = new StringBuilder();
+		int epoch = -1;
+		for (String line : sp3("GPS", 0).split("\n")) {
+			if (line.startsWith("*")) epoch++;
+			if (epoch == 10 && line.startsWith("PG05")) {
+				line = "PG05      0.000000      0.000000      0.000000" + line.substring(46);
+			}
+			sb.append(line).append('\n');
+		}
+		Sp3File sp3 = parse(sb.toString());
+		int sat = SatSystem.globalIndex(5);
+		long t = sp3.epochTime(10) + 100 * GpsTimeNs.NS_IN_SECOND;
+		double[] d = new double[Ephemeris.STRIDE];
+		assertTrue(Double.isNaN(sp3.column(sat, Ephemeris.X)[10]));
+		assertFalse(sp3.interpolate(sat, t, d, 0));
+		assertNull(sp3.get(sat, t));
+		assertFalse(new OrbitCache(sp3).evaluate(sat, t, d, 0));
+		assertNotNull(sp3.get(SatSystem.GLONASS.firstGlobalIndex() + 2, t));
+		assertTrue(sp3.interpolate(sat, sp3.epochTime(EPOCHS - 1), d, 0));
+		assertNotNull(sp3.get(sat, sp3.epochTime(EPOCHS - 1)));
+	}
+
+	@Test
+	public void testMalformed() {
+		String good = sp3("GPS", 0);
+		String[] bad = {
+				"#aP" + good.substring(3),
+				good.replace("PG05  ", "PG05 x"),
+				good.replaceFirst(" 0 15  0\\.", " 0 16  0."),
+		};
+		for (String s : bad) {
+			try {
+				parse(s);
+				fail(s.substring(0, 80));
+			} catch (ParseException e) {
+				assertTrue(e.getErrorOffset() >= 1);
+			}
+		}
+	}
+}